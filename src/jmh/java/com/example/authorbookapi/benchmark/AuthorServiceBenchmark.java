@@ -0,0 +1,68 @@
+package com.example.authorbookapi.benchmark;
+
+import com.example.authorbookapi.dto.AuthorSummary;
+import com.example.authorbookapi.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * This measures the average time of the AuthorService calls behind the busiest endpoints, against catalogs from 10 to 1M books.
+ * Run it with mvn -Pbenchmarks test-compile exec:exec -Djmh.args="AuthorServiceBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorServiceBenchmark {
+
+    /**
+     * This reads a page of 50 authors starting after a random author, like a client paging through GET /api/authors/
+     *
+     * @param catalog represents the seeded catalog
+     * @return the page, so the JIT can't skip the call
+     */
+    @Benchmark
+    public List<AuthorSummary> getAllAuthors(Catalog catalog) {
+        return catalog.authorService().getAllAuthors(catalog.randomAuthorId(), 50);
+    }
+
+
+    /**
+     * This reads a random book. Once the catalog is bigger than the books cache most of these go to the database
+     *
+     * @param catalog represents the seeded catalog
+     * @return the book, so the JIT can't skip the call
+     */
+    @Benchmark
+    public Optional<Book> getBookById(Catalog catalog) {
+        long bookId = catalog.randomBookId();
+        return catalog.authorService().getBookById(catalog.authorIdOf(bookId), bookId);
+    }
+
+
+    /**
+     * This adds a book to a random author, which also bumps the author's version. The catalog grows by one book per call
+     *
+     * @param catalog represents the seeded catalog
+     * @return the new book, so the JIT can't skip the call
+     */
+    @Benchmark
+    public Book createBook(Catalog catalog) {
+        Book book = new Book();
+        book.setName(catalog.nextBookName());
+        book.setDescription("Description");
+        book.setIsbn("0000000");
+        return catalog.authorService().createBook(catalog.randomAuthorId(), book);
+    }
+
+}
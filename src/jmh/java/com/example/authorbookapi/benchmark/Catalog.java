@@ -0,0 +1,108 @@
+package com.example.authorbookapi.benchmark;
+
+import com.example.authorbookapi.AuthorBookApiApplication;
+import com.example.authorbookapi.service.AuthorService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * This boots the app without a web server and fills the database with a catalog of the given number of books, written by one author for every 10 books.
+ * The rows are inserted with plain SQL so even the 1M row catalog is ready in seconds. The seeded ids start at FIRST_ID so they never collide with the rows from SeedData
+ */
+@State(Scope.Benchmark)
+public class Catalog {
+
+    static final long FIRST_ID = 1_000;
+    static final int BOOKS_PER_AUTHOR = 10;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext app;
+    private AuthorService authorService;
+    private long authors;
+    private final AtomicLong newBooks = new AtomicLong();
+
+
+    @Setup(Level.Trial)
+    public void boot() {
+        app = new SpringApplicationBuilder(AuthorBookApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=warn");
+        authorService = app.getBean(AuthorService.class);
+        authors = Math.max(1, rows / BOOKS_PER_AUTHOR);
+
+        JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO authors (id, first_name, last_name, version) SELECT X, 'First ' || X, 'Last ' || X, 0 FROM SYSTEM_RANGE(?, ?)",
+                FIRST_ID, FIRST_ID + authors - 1);
+        jdbcTemplate.update("INSERT INTO books (id, name, description, isbn, author_id, version) SELECT X, 'Book ' || X, 'Description ' || X, CAST(X AS VARCHAR), ? + (X - ?) / ?, 0 FROM SYSTEM_RANGE(?, ?)",
+                FIRST_ID, FIRST_ID, BOOKS_PER_AUTHOR, FIRST_ID, FIRST_ID + rows - 1);
+        // This moves the sequences past the seeded ids, so books created by the benchmarks get new ones
+        jdbcTemplate.execute("ALTER SEQUENCE authors_seq RESTART WITH " + (FIRST_ID + authors + 100));
+        jdbcTemplate.execute("ALTER SEQUENCE books_seq RESTART WITH " + (FIRST_ID + rows + 100));
+    }
+
+
+    @TearDown(Level.Trial)
+    public void shutDown() {
+        app.close();
+    }
+
+
+    AuthorService authorService() {
+        return authorService;
+    }
+
+
+    /**
+     * This picks one of the seeded authors at random
+     *
+     * @return the id of the author
+     */
+    long randomAuthorId() {
+        return FIRST_ID + ThreadLocalRandom.current().nextLong(authors);
+    }
+
+
+    /**
+     * This picks one of the seeded books at random
+     *
+     * @return the id of the book
+     */
+    long randomBookId() {
+        return FIRST_ID + ThreadLocalRandom.current().nextLong(rows);
+    }
+
+
+    /**
+     * This finds the author of one of the seeded books
+     *
+     * @param bookId represents the id of the book
+     * @return the id of the book's author
+     */
+    long authorIdOf(long bookId) {
+        return FIRST_ID + (bookId - FIRST_ID) / BOOKS_PER_AUTHOR;
+    }
+
+
+    /**
+     * This makes a name for a new book that no other book has, since book names are unique
+     *
+     * @return the name of the book
+     */
+    String nextBookName() {
+        return "New Book " + newBooks.incrementAndGet();
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.example.authorbookapi.benchmark;
+
+import com.example.authorbookapi.dto.ResponseEnvelope;
+import com.example.authorbookapi.model.Author;
+import com.example.authorbookapi.model.Book;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * This measures how long Jackson takes to write an author list response with every author's book list, like GET /api/authors/?include=books, for responses holding 10 to 1M books, as JSON, Smile and CBOR, with and without gzip.
+ * The ObjectMapper is built the same way Spring Boot builds the app's, with the Hibernate module from JacksonConfig. The size of each response, which is what goes over the wire, is printed when each trial starts.
+ * Run it with mvn -Pbenchmarks test-compile exec:exec -Djmh.args="SerializationBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    private ObjectWriter writer;
+    private ResponseEnvelope<List<Author>> response;
+
+
+    @Setup(Level.Trial)
+    public void buildResponse() {
+        writer = builderFor(format).modulesToInstall(new Hibernate5Module()).build().writer();
+
+        List<Author> authors = new ArrayList<>();
+        for (long id = 1; id <= rows; id++) {
+            if ((id - 1) % Catalog.BOOKS_PER_AUTHOR == 0) {
+                Author author = new Author(id, "First " + id, "Last " + id);
+                author.setBookList(new ArrayList<>());
+                authors.add(author);
+            }
+            Author author = authors.get(authors.size() - 1);
+            author.addToBookList(new Book(id, "Book " + id, "Description " + id, String.valueOf(id), author));
+        }
+        response = ResponseEnvelope.page("success", authors, null);
+    }
+
+
+    @Setup(Level.Trial)
+    public void printSizes() throws IOException {
+        System.out.printf("%n%s with %d books: %d bytes, %d bytes gzipped%n", format, rows, writeAuthorsWithBooks(), writeAuthorsWithBooksGzipped());
+    }
+
+
+    /**
+     * This writes the response to a stream that throws the bytes away, so only the serialization is measured
+     *
+     * @return the number of bytes written, so the JIT can't skip the call
+     * @throws IOException if the response can't be written
+     */
+    @Benchmark
+    public long writeAuthorsWithBooks() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        writer.writeValue(out, response);
+        return out.count;
+    }
+
+
+    /**
+     * This writes the response through gzip, the way server.compression sends it to a caller that accepts gzip, so the cost of compressing is measured along with the serialization
+     *
+     * @return the number of compressed bytes written, so the JIT can't skip the call
+     * @throws IOException if the response can't be written
+     */
+    @Benchmark
+    public long writeAuthorsWithBooksGzipped() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            writer.writeValue(gzip, response);
+        }
+        return out.count;
+    }
+
+
+    // This starts an ObjectMapper builder for the format, like JacksonConfig does for the Smile and CBOR message converters
+    private static Jackson2ObjectMapperBuilder builderFor(String format) {
+        switch (format) {
+            case "smile":
+                return Jackson2ObjectMapperBuilder.json().factory(new SmileFactory());
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.json().factory(new CBORFactory());
+            default:
+                return Jackson2ObjectMapperBuilder.json();
+        }
+    }
+
+
+    // This counts the bytes written to it instead of keeping them
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.example.authorbookapi.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE) // This turns on @Cacheable and @CacheEvict. The caches themselves are set up by the spring.cache properties
+// The cache is checked before a transaction is started, and @CacheEvict runs after the transaction has committed, so a read can't put the old record back in the cache while the write is still in flight. AuthorService's own evictions, for keys that aren't method arguments, are registered to run after the commit too
+public class CacheConfig {
+
+    // This cache holds authors with their book lists, by author id
+    public static final String AUTHORS_CACHE = "authors";
+
+    // This cache holds books, by book id
+    public static final String BOOKS_CACHE = "books";
+
+}
@@ -0,0 +1,23 @@
+package com.example.authorbookapi.config;
+
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+
+@Configuration
+public class CompressionConfig {
+
+    /**
+     * This lets Tomcat gzip responses that have a strong ETag. By default it never compresses them, which would leave out every author and book read, since those all send their version as a strong ETag.
+     * Compressing doesn't change what the ETag stands for here (the record's version), and Tomcat adds Vary: Accept-Encoding, so caches still keep the gzipped and plain bodies apart. The compression itself is set up by the server.compression properties
+     *
+     * @return the Tomcat customizer
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<AbstractHttp11Protocol<?>> strongETagCompressionCustomizer() {
+        return protocolHandler -> protocolHandler.setNoCompressionStrongETag(false);
+    }
+
+}
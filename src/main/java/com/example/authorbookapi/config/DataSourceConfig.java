@@ -0,0 +1,57 @@
+package com.example.authorbookapi.config;
+
+import com.example.authorbookapi.sql.SqlBudgetFilter;
+import com.example.authorbookapi.sql.SqlBudgetListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+
+
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * This wraps the connection pool so a transaction only takes a connection from the pool when it sends its first statement. Read-only transactions that are answered from a cache never touch the pool at all.
+     * Inside that, every statement goes through SqlBudgetListener, which counts it for the current request and logs it if it's slow
+     *
+     * @param slowQueryMillis represents how long a statement can take before it's logged as slow
+     * @return the post processor that wraps the DataSource
+     */
+    @Bean
+    public static BeanPostProcessor lazyConnectionDataSourcePostProcessor(@Value("${sql.slow-query.millis:100}") long slowQueryMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+                if (bean instanceof DataSource && !(bean instanceof LazyConnectionDataSourceProxy)) {
+                    return new LazyConnectionDataSourceProxy(ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name(beanName)
+                            .listener(new SqlBudgetListener(slowQueryMillis))
+                            .build());
+                }
+                return bean;
+            }
+        };
+    }
+
+
+    /**
+     * This logs every HTTP request that sends more SQL statements, or spends longer in the database, than its budget allows
+     *
+     * @param statementBudget represents how many statements a request can send before it's logged
+     * @param millisBudget represents how long the database can spend on a request's statements before it's logged
+     * @return the filter, registered for every request
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<SqlBudgetFilter> sqlBudgetFilter(@Value("${sql.budget.statements:20}") int statementBudget, @Value("${sql.budget.millis:500}") long millisBudget) {
+        return new FilterRegistrationBean<>(new SqlBudgetFilter(statementBudget, millisBudget));
+    }
+
+}
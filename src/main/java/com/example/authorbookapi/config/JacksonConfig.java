@@ -0,0 +1,50 @@
+package com.example.authorbookapi.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * This registers the Hibernate module with Spring's ObjectMapper, so an author whose books weren't fetched is serialized with a null book list instead of failing (or loading it) after the transaction has ended
+     *
+     * @return the Jackson module
+     */
+    @Bean
+    public Hibernate5Module hibernate5Module() {
+        return new Hibernate5Module();
+    }
+
+
+    /**
+     * This lets a caller ask for any response as Smile (Accept: application/x-jackson-smile), a binary form of JSON that's smaller and quicker to write and read. The ObjectMapper is built by Spring Boot's builder, so it has the Hibernate module and the same settings as the JSON one
+     *
+     * @param builder represents Spring Boot's ObjectMapper builder, which is a new one for each bean that asks for it
+     * @return the message converter
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+
+    /**
+     * This lets a caller ask for any response as CBOR (Accept: application/cbor), the standard binary form of JSON, with the same ObjectMapper settings as the JSON one
+     *
+     * @param builder represents Spring Boot's ObjectMapper builder, which is a new one for each bean that asks for it
+     * @return the message converter
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+}
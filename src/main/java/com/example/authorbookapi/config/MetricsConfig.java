@@ -0,0 +1,23 @@
+package com.example.authorbookapi.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * This records a timer for every class and method marked with @Timed. Spring Boot only does this for controllers on its own
+     *
+     * @param meterRegistry represents the registry the timers are recorded in
+     * @return the aspect that times the calls
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+}
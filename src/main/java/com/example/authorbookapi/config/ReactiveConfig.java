@@ -0,0 +1,51 @@
+package com.example.authorbookapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+
+@Configuration
+@Profile("reactive") // This is only used when the reactive profile is active
+public class ReactiveConfig {
+
+    /**
+     * This reads the spring.datasource settings. Spring Boot stops creating the JDBC DataSource once there's an R2DBC ConnectionFactory, so it's created here instead
+     *
+     * @return the DataSource settings
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+
+    /**
+     * This creates the JDBC connection pool. The reactive endpoints never use it, but Hibernate does, to create the tables and sequences at startup
+     *
+     * @param dataSourceProperties represents the DataSource settings
+     * @return the connection pool
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+
+    /**
+     * This serves the reactive endpoints from Netty. Tomcat is on the classpath for the servlet stack, and Spring Boot would otherwise pick it for reactive apps too
+     *
+     * @return the Netty server factory
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+}
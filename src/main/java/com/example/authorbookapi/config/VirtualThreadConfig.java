@@ -0,0 +1,56 @@
+package com.example.authorbookapi.config;
+
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+@Configuration
+@Profile("virtual-threads") // This is only used when the virtual-threads profile is active, which needs Java 21
+public class VirtualThreadConfig {
+
+    /**
+     * This creates the executor that starts a new virtual thread for every task. It's looked up by name so the project still compiles on Java 17, where virtual threads don't exist
+     *
+     * @return the virtual thread executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("the virtual-threads profile needs Java 21 or newer, but this is Java " + Runtime.version().feature(), e);
+        }
+    }
+
+
+    /**
+     * This makes Tomcat run every request on its own virtual thread instead of its pool of 200 platform threads, so a request waiting on the database doesn't hold up a platform thread
+     *
+     * @param virtualThreadExecutor represents the virtual thread executor
+     * @return the Tomcat customizer
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+
+    /**
+     * This replaces Spring's task executor with the virtual thread executor, so async work like writing the NDJSON exports (and anything marked @Async) runs on virtual threads too
+     *
+     * @param virtualThreadExecutor represents the virtual thread executor
+     * @return the task executor
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+}
@@ -1,73 +1,126 @@
 package com.example.authorbookapi.controller;
 
-import com.example.authorbookapi.exception.InformationExistException;
+import com.example.authorbookapi.dto.AuthorSummary;
+import com.example.authorbookapi.dto.ImportResult;
+import com.example.authorbookapi.dto.BookSearchResult;
+import com.example.authorbookapi.dto.ResponseEnvelope;
+import com.example.authorbookapi.exception.InformationInvalidException;
 import com.example.authorbookapi.exception.InformationNotFoundException;
+import com.example.authorbookapi.exception.InformationUnavailableException;
 import com.example.authorbookapi.model.Author;
 import com.example.authorbookapi.model.Book;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.example.authorbookapi.service.AuthorService;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 
 @RestController
+@Profile("!reactive") // ReactiveAuthorController serves the same paths when the reactive profile is active
 @RequestMapping("/api/") // http://localhost:9092/api
 public class AuthorController {
 
-    private AuthorService authorService;
+    // This is the page size used by the list endpoints when the user doesn't send a limit
+    static final String DEFAULT_PAGE_SIZE = "50";
+    static final String DEFAULT_SEARCH_SIZE = "20";
+    // This is how many suggestions the autocomplete endpoint sends when the user doesn't send a limit
+    static final String DEFAULT_SUGGESTION_SIZE = "10";
 
-    static HashMap<String, Object> result = new HashMap<>();
-    static HashMap<String, Object> message = new HashMap<>();
+    private AuthorService authorService;
+    private ObjectMapper objectMapper;
 
     @Autowired
     public void setAuthorService(AuthorService authorService) {
         this.authorService = authorService;
     }
 
+    @Autowired
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
 
     /**
-     * This sets the path for GET requests for all authors and checks if the list of authors is empty or not before deciding whether to send an HTTP status message of OK or NOT FOUND
+     * This sets the path for GET requests for a page of authors. Only the authors' ids and names are sent unless the user asks for their books with include=books
      *
+     * @param after represents the cursor from the previous page, or nothing for the first page
+     * @param limit represents the maximum number of authors the user wants in the page
+     * @param include represents the related data the user wants with each author, which can only be "books"
+     * @param fields represents the fields the user wants for each author, like "id,lastName". Only those columns are selected
      * @return the HTTP status message
      */
     @GetMapping(path = "/authors/")
-    public ResponseEntity<?> getAllAuthors() {
+    public ResponseEntity<?> getAllAuthors(@RequestParam(value = "after", required = false) Long after, @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_SIZE) int limit, @RequestParam(value = "include", required = false) String include,
+                                           @RequestParam(value = "fields", required = false) String fields) {
+
+        if (fields != null) {
+            if (include != null) {
+                throw new InformationInvalidException("fields can't be combined with include; use /api/authors/books/?authorId= with fields to get an author's books");
+            }
+            return Responses.pageOf(authorService.getAuthorFields(after, limit, fields), Responses::idOf, after, limit, "cannot find any authors ");
+        }
+        if ("books".equals(include)) {
+            return Responses.pageOf(authorService.getAllAuthorsWithBooks(after, limit), Author::getId, after, limit, "cannot find any authors ");
+        }
+        return Responses.pageOf(authorService.getAllAuthors(after, limit), AuthorSummary::getId, after, limit, "cannot find any authors ");
+    }
 
-        List<Author> authorList = authorService.getAllAuthors();
 
-        if (authorList.isEmpty()) {
-            message.put("message", "cannot find any authors ");
-            return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
-        } else {
-            message.put("message", "success");
-            message.put("data", authorList);
-            return new ResponseEntity<>(message, HttpStatus.OK);
-        }
+    /**
+     * This sets the path for GET requests for a batch of authors by id, like /api/authors/?ids=3,1,2, and checks if any of them exist or not before deciding whether to send an HTTP status message of OK or NOT FOUND. The authors are sent in the order of their ids, and the ids that weren't found are listed in missingIds
+     *
+     * @param authorIds represents the ids of the authors the user wants, separated by commas
+     * @return the HTTP status message
+     */
+    @GetMapping(path = {"/authors", "/authors/"}, params = "ids")
+    public ResponseEntity<?> getAuthorsByIds(@RequestParam(value = "ids") List<Long> authorIds) {
+        return Responses.batchOf(authorService.getAuthorsByIds(authorIds), "cannot find any authors with these ids");
     }
 
 
     /**
-     * This sets the path for GET requests for an individual author and checks if the author exists or not before deciding whether to send an HTTP status message of OK or NOT FOUND
+     * This sets the path for GET requests for an individual author and checks if the author exists or not before deciding whether to send an HTTP status message of OK or NOT FOUND. The author's version is sent as an ETag, and if the user sends it back in If-None-Match and the author hasn't changed, NOT MODIFIED is sent without loading the author
      *
      * @param authorId represents the id of the specific author the user is trying to get
+     * @param fields represents the fields the user wants, like "id,lastName". The author's book list isn't loaded when this is sent
+     * @param webRequest represents the request, which is checked for an If-None-Match header
      * @return the HTTP status message
      */
     @GetMapping(path = "/authors/{authorId}/")
-    public ResponseEntity<?> getAuthorById(@PathVariable(value = "authorId") Long authorId) {
+    public ResponseEntity<?> getAuthorById(@PathVariable(value = "authorId") Long authorId, @RequestParam(value = "fields", required = false) String fields, WebRequest webRequest) {
+
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null && webRequest.checkNotModified(Responses.etagOf(authorService.getAuthorVersion(authorId)))) {
+            return Responses.notModified();
+        }
+
+        if (fields != null) {
+            return Responses.fieldsOf(authorService.getAuthorFieldsById(authorId, fields), "cannot find author with id " + authorId);
+        }
 
         Optional<Author> authorOptional = authorService.getAuthorById(authorId);
 
         if (authorOptional.isPresent()) {
-            message.put("message", "success");
-            message.put("data", authorOptional.get());
-            return new ResponseEntity<>(message, HttpStatus.OK);
+            return new ResponseEntity<>(ResponseEnvelope.of("success", authorOptional.get()), Responses.etagHeaders(authorOptional.get().getVersion()), HttpStatus.OK);
         } else {
-            message.put("message", "cannot find author with id " + authorId);
-            return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(ResponseEnvelope.of("cannot find author with id " + authorId), HttpStatus.NOT_FOUND);
         }
     }
 
@@ -84,35 +137,30 @@ public class AuthorController {
         Author newAuthor = authorService.createAuthor(authorObject);
 
         if (newAuthor != null) {
-            message.put("message", "success");
-            message.put("data", newAuthor);
-            return new ResponseEntity<>(message, HttpStatus.CREATED);
+            return new ResponseEntity<>(ResponseEnvelope.of("success", newAuthor), HttpStatus.CREATED);
         } else {
-            message.put("message", "unable to create an author at this time");
-            return new ResponseEntity<>(message, HttpStatus.OK);
+            return new ResponseEntity<>(ResponseEnvelope.of("unable to create an author at this time"), HttpStatus.OK);
         }
     }
 
 
     /**
-     * This sets the path for PUT requests for an existing author and checks if the author exists or not before deciding whether to send an HTTP status message of OK or NOT FOUND
+     * This sets the path for PUT requests for an existing author and checks if the author exists or not before deciding whether to send an HTTP status message of OK or NOT FOUND. If the user sends the author's ETag in If-Match, the update only happens if the author hasn't changed since, otherwise PRECONDITION FAILED is sent
      *
      * @param authorId represents the id of the author the user is trying to update
      * @param authorObject represents the updated version of the author
+     * @param ifMatch represents the ETag of the author the user is updating, or nothing to update whatever version is current
      * @return the HTTP status message
      */
     @PutMapping(path = "/authors/{authorId}/")
-    public ResponseEntity<?> updateAuthor(@PathVariable(value = "authorId") Long authorId, @RequestBody Author authorObject) throws InformationNotFoundException {
+    public ResponseEntity<?> updateAuthor(@PathVariable(value = "authorId") Long authorId, @RequestBody Author authorObject, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws InformationNotFoundException {
 
-        Optional<Author> authorToUpdate = authorService.updateAuthor(authorId, authorObject);
+        Optional<Author> authorToUpdate = authorService.updateAuthor(authorId, authorObject, Responses.versionOf(ifMatch));
 
         if (authorToUpdate.isPresent()) {
-            message.put("message", "author with id " + authorId + " has been successfully updated");
-            message.put("data", authorToUpdate.get());
-            return new ResponseEntity<>(message, HttpStatus.OK);
+            return new ResponseEntity<>(ResponseEnvelope.of("author with id " + authorId + " has been successfully updated", authorToUpdate.get()), Responses.etagHeaders(authorToUpdate.get().getVersion()), HttpStatus.OK);
         } else {
-            message.put("message", "author with id " + authorId + " not found");
-            return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(ResponseEnvelope.of("author with id " + authorId + " not found"), HttpStatus.NOT_FOUND);
         }
     }
 
@@ -129,55 +177,112 @@ public class AuthorController {
         Optional<Author> authorToDelete = authorService.deleteAuthor(authorId);
 
         if (authorToDelete.isPresent()) {
-            message.put("message", "author with id " + authorId + " has been successfully deleted");
-            message.put("data", authorToDelete.get());
-            return new ResponseEntity<>(message, HttpStatus.OK);
+            return new ResponseEntity<>(ResponseEnvelope.of("author with id " + authorId + " has been successfully deleted", authorToDelete.get()), HttpStatus.OK);
         } else {
-            message.put("message", "cannot find author with id " + authorId);
-            return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(ResponseEnvelope.of("cannot find author with id " + authorId), HttpStatus.NOT_FOUND);
         }
     }
 
 
     /**
-     * This sets the path for GET requests for all books and checks if the list of books is empty or not before deciding whether to send an HTTP status message of OK or NOT FOUND
+     * This sets the path for GET requests for a page of books. The books can be filtered by author, ISBN prefix and name, and sorted by id or name, in the database; without any of those they're listed by id
      *
+     * @param after represents the cursor from the previous page, or nothing for the first page
+     * @param limit represents the maximum number of books the user wants in the page
+     * @param authorId represents the id of the author whose books the user wants
+     * @param isbnPrefix represents the start of the ISBNs the user wants
+     * @param nameContains represents text the books' names have to contain, which has to be sent with authorId or isbnPrefix
+     * @param sort represents the column to sort by and the direction, like "name,desc"
+     * @param fields represents the fields the user wants for each book, like "id,name". Only those columns are selected
      * @return the HTTP status message
      */
     @GetMapping(path = "/authors/books/")
-    public ResponseEntity<?> getAllBooks() {
+    public ResponseEntity<?> getAllBooks(@RequestParam(value = "after", required = false) Long after, @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                         @RequestParam(value = "authorId", required = false) Long authorId, @RequestParam(value = "isbnPrefix", required = false) String isbnPrefix,
+                                         @RequestParam(value = "nameContains", required = false) String nameContains, @RequestParam(value = "sort", required = false) String sort,
+                                         @RequestParam(value = "fields", required = false) String fields) {
 
-        List<Book> bookList = authorService.getAllBooks();
+        if (fields != null) {
+            return Responses.pageOf(authorService.findBookFields(authorId, isbnPrefix, nameContains, sort, after, limit, fields), Responses::idOf, after, limit, "cannot find any books ");
+        }
 
-        if (bookList.isEmpty()) {
-            message.put("message", "cannot find any books ");
-            return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
-        } else {
-            message.put("message", "success");
-            message.put("data", bookList);
-            return new ResponseEntity<>(message, HttpStatus.OK);
+        if (authorId == null && isbnPrefix == null && nameContains == null && sort == null) {
+            return Responses.pageOf(authorService.getAllBooks(after, limit), Book::getId, after, limit, "cannot find any books ");
+        }
+
+        return Responses.pageOf(authorService.findBooks(authorId, isbnPrefix, nameContains, sort, after, limit), Book::getId, after, limit, "cannot find any books matching these filters");
+    }
+
+
+    /**
+     * This sets the path for GET requests for a batch of books by id, like /api/books/?ids=3,1,2, and checks if any of them exist or not before deciding whether to send an HTTP status message of OK or NOT FOUND. The books are sent in the order of their ids, and the ids that weren't found are listed in missingIds
+     *
+     * @param bookIds represents the ids of the books the user wants, separated by commas
+     * @return the HTTP status message
+     */
+    @GetMapping(path = {"/books", "/books/"}, params = "ids")
+    public ResponseEntity<?> getBooksByIds(@RequestParam(value = "ids") List<Long> bookIds) {
+        return Responses.batchOf(authorService.getBooksByIds(bookIds), "cannot find any books with these ids");
+    }
+
+
+    /**
+     * This sets the path for GET requests that search every book's name, description and author's name, and checks if any books match or not before deciding whether to send an HTTP status message of OK or NOT FOUND. The best matches are sent first
+     *
+     * @param query represents the words the user is searching for
+     * @param limit represents the maximum number of books the user wants back
+     * @return the HTTP status message
+     */
+    @GetMapping(path = "/books/search")
+    public ResponseEntity<?> searchBooks(@RequestParam(value = "q") String query, @RequestParam(value = "limit", defaultValue = DEFAULT_SEARCH_SIZE) int limit) {
+        List<BookSearchResult> results = authorService.searchBooks(query, limit);
+
+        if (results.isEmpty()) {
+            return new ResponseEntity<>(ResponseEnvelope.of("cannot find any books matching " + query), HttpStatus.NOT_FOUND);
         }
+        return new ResponseEntity<>(ResponseEnvelope.of("success", results), HttpStatus.OK);
+    }
+
+
+    /**
+     * This sets the path for GET requests for type-ahead suggestions, which are the authors (by first or last name) and books (by name) whose name starts with what the user has typed so far. An empty list is sent with OK when nothing matches, since that's an ordinary answer while the user is still typing
+     *
+     * @param prefix represents what the user has typed so far
+     * @param limit represents the maximum number of suggestions the user wants back
+     * @return the HTTP status message
+     */
+    @GetMapping(path = "/autocomplete")
+    public ResponseEntity<?> autocomplete(@RequestParam(value = "q") String prefix, @RequestParam(value = "limit", defaultValue = DEFAULT_SUGGESTION_SIZE) int limit) {
+        return new ResponseEntity<>(ResponseEnvelope.of("success", authorService.suggest(prefix, limit)), HttpStatus.OK);
     }
 
 
     /**
-     * This sets the path for GET requests for an individual book and checks if the book exists or not before deciding whether to send an HTTP status message of OK or NOT FOUND
+     * This sets the path for GET requests for an individual book and checks if the book exists or not before deciding whether to send an HTTP status message of OK or NOT FOUND. The book's version is sent as an ETag, and if the user sends it back in If-None-Match and the book hasn't changed, NOT MODIFIED is sent without loading the book
      *
+     * @param authorId represents the id of the specific author whose book list the user is trying to get a book from
      * @param bookId represents the id of the specific book the user is trying to get
+     * @param fields represents the fields the user wants, like "id,name"
+     * @param webRequest represents the request, which is checked for an If-None-Match header
      * @return the HTTP status message
      */
     @GetMapping(path = "/authors/{authorId}/books/{bookId}/")
-    public ResponseEntity<?> getBookById(@PathVariable(value = "authorId") Long authorId, @PathVariable(value = "bookId") Long bookId) {
+    public ResponseEntity<?> getBookById(@PathVariable(value = "authorId") Long authorId, @PathVariable(value = "bookId") Long bookId, @RequestParam(value = "fields", required = false) String fields, WebRequest webRequest) {
+
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null && webRequest.checkNotModified(Responses.etagOf(authorService.getBookVersion(authorId, bookId)))) {
+            return Responses.notModified();
+        }
+
+        if (fields != null) {
+            return Responses.fieldsOf(authorService.getBookFieldsById(authorId, bookId, fields), "cannot find book with id " + bookId);
+        }
 
         Optional<Book> bookOptional = authorService.getBookById(authorId, bookId);
 
         if (bookOptional.isPresent()) {
-            message.put("message", "success");
-            message.put("data", bookOptional.get());
-            return new ResponseEntity<>(message, HttpStatus.OK);
+            return new ResponseEntity<>(ResponseEnvelope.of("success", bookOptional.get()), Responses.etagHeaders(bookOptional.get().getVersion()), HttpStatus.OK);
         } else {
-            message.put("message", "cannot find book with id " + bookId);
-            return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(ResponseEnvelope.of("cannot find book with id " + bookId), HttpStatus.NOT_FOUND);
         }
     }
 
@@ -192,39 +297,33 @@ public class AuthorController {
     @PostMapping(path = "/authors/{authorId}/books/")
     public ResponseEntity<?> createBook(@PathVariable(value = "authorId") Long authorId, @RequestBody Book bookObject) {
 
-        Optional<Author> author = authorService.getAuthorById(authorId);
         Book newBook = authorService.createBook(authorId, bookObject);
 
-        if (author.isPresent() && newBook != null) {
-            message.put("message", "success");
-            message.put("data", newBook);
-            return new ResponseEntity<>(message, HttpStatus.CREATED);
+        if (newBook != null) {
+            return new ResponseEntity<>(ResponseEnvelope.of("success", newBook), HttpStatus.CREATED);
         } else {
-            message.put("message", "unable to create a book at this time");
-            return new ResponseEntity<>(message, HttpStatus.OK);
+            return new ResponseEntity<>(ResponseEnvelope.of("unable to create a book at this time"), HttpStatus.OK);
         }
     }
 
 
     /**
-     * This sets the path for PUT requests for an individual book and checks if the book exists or not before deciding whether to send an HTTP status message of OK or NOT FOUND
+     * This sets the path for PUT requests for an individual book and checks if the book exists or not before deciding whether to send an HTTP status message of OK or NOT FOUND. If the user sends the book's ETag in If-Match, the update only happens if the book hasn't changed since, otherwise PRECONDITION FAILED is sent
      *
      * @param bookId represents the id of the specific book the user is trying to update
      * @param bookObject represents the new book the user is trying to update
+     * @param ifMatch represents the ETag of the book the user is updating, or nothing to update whatever version is current
      * @return the HTTP status message
      */
     @PutMapping(path = "/authors/{authorId}/books/{bookId}/")
-    public ResponseEntity<?> updateBook(@PathVariable(value = "bookId") Long bookId, @RequestBody Book bookObject) {
+    public ResponseEntity<?> updateBook(@PathVariable(value = "bookId") Long bookId, @RequestBody Book bookObject, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        Optional<Book> bookToUpdate = authorService.updateBook(bookId, bookObject);
+        Optional<Book> bookToUpdate = authorService.updateBook(bookId, bookObject, Responses.versionOf(ifMatch));
 
         if (bookToUpdate.isPresent()) {
-            message.put("message", "book with id " + bookId + " has been successfully updated");
-            message.put("data", bookToUpdate.get());
-            return new ResponseEntity<>(message, HttpStatus.OK);
+            return new ResponseEntity<>(ResponseEnvelope.of("book with id " + bookId + " has been successfully updated", bookToUpdate.get()), Responses.etagHeaders(bookToUpdate.get().getVersion()), HttpStatus.OK);
         } else {
-            message.put("message", "book with id " + bookId + " not found");
-            return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(ResponseEnvelope.of("book with id " + bookId + " not found"), HttpStatus.NOT_FOUND);
         }
     }
 
@@ -241,13 +340,146 @@ public class AuthorController {
         Optional<Book> bookToDelete = authorService.deleteBook(bookId);
 
         if (bookToDelete.isPresent()) {
-            message.put("message", "book with id " + bookId + " has been successfully deleted");
-            message.put("data", bookToDelete.get());
-            return new ResponseEntity<>(message, HttpStatus.OK);
+            return new ResponseEntity<>(ResponseEnvelope.of("book with id " + bookId + " has been successfully deleted", bookToDelete.get()), HttpStatus.OK);
         } else {
-            message.put("message", "cannot find book with id " + bookId);
-            return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
+            return new ResponseEntity<>(ResponseEnvelope.of("cannot find book with id " + bookId), HttpStatus.NOT_FOUND);
+        }
+    }
+
+
+    /**
+     * This sets the path for POST requests that import a feed of authors, each with an optional book list. The feed can be a JSON array or NDJSON (one author per line), and is read one author at a time as it's saved
+     *
+     * @param feed represents the body of the request
+     * @return the HTTP status message
+     * @throws IOException if the body can't be read
+     */
+    @PostMapping(path = "/authors/import/", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importAuthors(InputStream feed) throws IOException {
+
+        try (MappingIterator<Author> authors = objectMapper.readerFor(Author.class).readValues(feed)) {
+            return importResponse(authorService.importAuthors(authors));
         }
     }
 
+
+    /**
+     * This sets the path for POST requests that import a feed of books into an author's book list. The feed can be a JSON array or NDJSON (one book per line), and is read one book at a time as it's saved
+     *
+     * @param authorId represents the id of the author whose book list the books are imported into
+     * @param feed represents the body of the request
+     * @return the HTTP status message
+     * @throws IOException if the body can't be read
+     */
+    @PostMapping(path = "/authors/{authorId}/books/import/", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importBooks(@PathVariable(value = "authorId") Long authorId, InputStream feed) throws IOException {
+
+        try (MappingIterator<Book> books = objectMapper.readerFor(Book.class).readValues(feed)) {
+            return importResponse(authorService.importBooks(authorId, books));
+        }
+    }
+
+
+    /**
+     * This sets the path for GET requests that export every author as NDJSON (one author per line). Authors are written as they're read from the database, so the response can be any size
+     *
+     * @return the HTTP status message with the streamed body
+     */
+    @GetMapping(path = "/authors/export/", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAuthors() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(ndjson(authorService::exportAuthors));
+    }
+
+
+    /**
+     * This sets the path for GET requests that export every book as NDJSON (one book per line, with its author's id). Books are written as they're read from the database, so the response can be any size
+     *
+     * @return the HTTP status message with the streamed body
+     */
+    @GetMapping(path = "/authors/books/export/", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(ndjson(authorService::exportBooks));
+    }
+
+
+    /**
+     * This sends CONFLICT when another request changed the same record while this one was saving it, so neither change is silently lost. The user can fetch the record again and retry
+     *
+     * @param e represents the conflict
+     * @return the HTTP status message
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleConcurrentUpdate(ObjectOptimisticLockingFailureException e) {
+        return new ResponseEntity<>(ResponseEnvelope.of(Responses.CONCURRENT_UPDATE_MESSAGE), HttpStatus.CONFLICT);
+    }
+
+
+    /**
+     * This sends BAD REQUEST, with the reason, when the user asked for something the API doesn't allow, like sorting by a column that isn't indexed
+     *
+     * @param e represents what was wrong with the request
+     * @return the HTTP status message
+     */
+    @ExceptionHandler(InformationInvalidException.class)
+    public ResponseEntity<?> handleInvalidRequest(InformationInvalidException e) {
+        return new ResponseEntity<>(ResponseEnvelope.of(e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+
+    /**
+     * This sends SERVICE UNAVAILABLE, with the reason and a Retry-After of one second, when the search or autocomplete index is still being built at startup
+     *
+     * @param e represents what isn't ready yet
+     * @return the HTTP status message
+     */
+    @ExceptionHandler(InformationUnavailableException.class)
+    public ResponseEntity<?> handleUnavailable(InformationUnavailableException e) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return new ResponseEntity<>(ResponseEnvelope.of(e.getMessage()), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+
+    /**
+     * This checks if an import saved anything or not before deciding whether to send an HTTP status message of CREATED or OK. Any rows that were skipped are listed in the 'errors' key
+     *
+     * @param result represents what the import saved and skipped
+     * @return the HTTP status message
+     */
+    private static ResponseEntity<?> importResponse(ImportResult result) {
+
+        if (result.getAuthorsImported() + result.getBooksImported() > 0) {
+            String message = result.getErrors().isEmpty() ? "success" : "some records could not be imported";
+            return new ResponseEntity<>(ResponseEnvelope.withErrors(message, result, result.getErrors()), HttpStatus.CREATED);
+        } else {
+            return new ResponseEntity<>(ResponseEnvelope.withErrors("unable to import any records at this time", result, result.getErrors()), HttpStatus.OK);
+        }
+    }
+
+
+    /**
+     * This builds a response body that runs an export and writes each record it produces on its own line. The body is written on a separate thread after the controller returns, and the output is only flushed when the buffer fills up, not after every record
+     *
+     * @param export represents the export to run, given what to do with each record
+     * @return the response body
+     */
+    private <T> StreamingResponseBody ndjson(Consumer<Consumer<T>> export) {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        return out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(null);
+
+            export.accept(record -> {
+                try {
+                    writer.writeValue(generator, record);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        };
+    }
+
 }
@@ -0,0 +1,230 @@
+package com.example.authorbookapi.controller;
+
+import com.example.authorbookapi.dto.AuthorSummary;
+import com.example.authorbookapi.dto.ResponseEnvelope;
+import com.example.authorbookapi.model.Author;
+import com.example.authorbookapi.model.Book;
+import com.example.authorbookapi.service.ReactiveAuthorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+// This serves the same paths, with the same request and response bodies, as AuthorController, but on WebFlux and R2DBC. It's only used when the reactive profile is active
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/") // http://localhost:9092/api
+public class ReactiveAuthorController {
+
+    private ReactiveAuthorService authorService;
+
+    @Autowired
+    public void setAuthorService(ReactiveAuthorService authorService) {
+        this.authorService = authorService;
+    }
+
+
+    /**
+     * This sets the path for GET requests for a page of authors. The page is read from the database as a stream and collected, since it's sent in one envelope and is never larger than the maximum page size
+     *
+     * @param after represents the cursor from the previous page, or nothing for the first page
+     * @param limit represents the maximum number of authors the user wants in the page
+     * @param include represents the related data the user wants with each author, which can only be "books"
+     * @return the HTTP status message
+     */
+    @GetMapping(path = "/authors/")
+    public Mono<ResponseEntity<?>> getAllAuthors(@RequestParam(value = "after", required = false) Long after, @RequestParam(value = "limit", defaultValue = AuthorController.DEFAULT_PAGE_SIZE) int limit, @RequestParam(value = "include", required = false) String include) {
+
+        if ("books".equals(include)) {
+            return authorService.getAllAuthorsWithBooks(after, limit).collectList()
+                    .map(page -> Responses.pageOf(page, Author::getId, after, limit, "cannot find any authors "));
+        }
+        return authorService.getAllAuthors(after, limit).collectList()
+                .map(page -> Responses.pageOf(page, AuthorSummary::getId, after, limit, "cannot find any authors "));
+    }
+
+
+    /**
+     * This sets the path for GET requests for an individual author. The author's version is sent as an ETag, and if the user sends it back in If-None-Match and the author hasn't changed, NOT MODIFIED is sent without loading the author
+     *
+     * @param authorId represents the id of the specific author the user is trying to get
+     * @param exchange represents the request, which is checked for an If-None-Match header
+     * @return the HTTP status message
+     */
+    @GetMapping(path = "/authors/{authorId}/")
+    public Mono<ResponseEntity<?>> getAuthorById(@PathVariable(value = "authorId") Long authorId, ServerWebExchange exchange) {
+
+        Mono<ResponseEntity<?>> author = Mono.defer(() -> authorService.getAuthorById(authorId))
+                .map(found -> new ResponseEntity<>(ResponseEnvelope.of("success", found), Responses.etagHeaders(found.getVersion()), HttpStatus.OK));
+
+        if (exchange.getRequest().getHeaders().getIfNoneMatch().isEmpty()) {
+            return author;
+        }
+        return authorService.getAuthorVersion(authorId)
+                .flatMap(version -> exchange.checkNotModified(Responses.etagOf(version)) ? Mono.just(Responses.notModified()) : author);
+    }
+
+
+    /**
+     * This sets the path for POST requests for a new author
+     *
+     * @param authorObject represents the new author the user is trying to create
+     * @return the HTTP status message
+     */
+    @PostMapping(path = "/authors/")
+    public Mono<ResponseEntity<?>> createAuthor(@RequestBody Author authorObject) {
+        return authorService.createAuthor(authorObject)
+                .map(newAuthor -> new ResponseEntity<>(ResponseEnvelope.of("success", newAuthor), HttpStatus.CREATED));
+    }
+
+
+    /**
+     * This sets the path for PUT requests for an existing author. If the user sends the author's ETag in If-Match, the update only happens if the author hasn't changed since, otherwise PRECONDITION FAILED is sent
+     *
+     * @param authorId represents the id of the author the user is trying to update
+     * @param authorObject represents the updated version of the author
+     * @param ifMatch represents the ETag of the author the user is updating, or nothing to update whatever version is current
+     * @return the HTTP status message
+     */
+    @PutMapping(path = "/authors/{authorId}/")
+    public Mono<ResponseEntity<?>> updateAuthor(@PathVariable(value = "authorId") Long authorId, @RequestBody Author authorObject, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = Responses.versionOf(ifMatch);
+        return authorService.updateAuthor(authorId, authorObject, expectedVersion)
+                .map(updatedAuthor -> new ResponseEntity<>(ResponseEnvelope.of("author with id " + authorId + " has been successfully updated", updatedAuthor), Responses.etagHeaders(updatedAuthor.getVersion()), HttpStatus.OK));
+    }
+
+
+    /**
+     * This sets the path for DELETE requests for an existing author, which deletes their books too
+     *
+     * @param authorId represents the id of the author the user is trying to delete
+     * @return the HTTP status message
+     */
+    @DeleteMapping(path = "/authors/{authorId}/")
+    public Mono<ResponseEntity<?>> deleteAuthor(@PathVariable(value = "authorId") Long authorId) {
+        return authorService.deleteAuthor(authorId)
+                .map(deletedAuthor -> new ResponseEntity<>(ResponseEnvelope.of("author with id " + authorId + " has been successfully deleted", deletedAuthor), HttpStatus.OK));
+    }
+
+
+    /**
+     * This sets the path for GET requests for a page of books
+     *
+     * @param after represents the cursor from the previous page, or nothing for the first page
+     * @param limit represents the maximum number of books the user wants in the page
+     * @return the HTTP status message
+     */
+    @GetMapping(path = "/authors/books/")
+    public Mono<ResponseEntity<?>> getAllBooks(@RequestParam(value = "after", required = false) Long after, @RequestParam(value = "limit", defaultValue = AuthorController.DEFAULT_PAGE_SIZE) int limit) {
+        return authorService.getAllBooks(after, limit).collectList()
+                .map(page -> Responses.pageOf(page, Book::getId, after, limit, "cannot find any books "));
+    }
+
+
+    /**
+     * This sets the path for GET requests for an individual book. The book's version is sent as an ETag, and if the user sends it back in If-None-Match and the book hasn't changed, NOT MODIFIED is sent without loading the book
+     *
+     * @param authorId represents the id of the specific author whose book list the user is trying to get a book from
+     * @param bookId represents the id of the specific book the user is trying to get
+     * @param exchange represents the request, which is checked for an If-None-Match header
+     * @return the HTTP status message
+     */
+    @GetMapping(path = "/authors/{authorId}/books/{bookId}/")
+    public Mono<ResponseEntity<?>> getBookById(@PathVariable(value = "authorId") Long authorId, @PathVariable(value = "bookId") Long bookId, ServerWebExchange exchange) {
+
+        Mono<ResponseEntity<?>> book = Mono.defer(() -> authorService.getBookById(authorId, bookId))
+                .map(found -> new ResponseEntity<>(ResponseEnvelope.of("success", found), Responses.etagHeaders(found.getVersion()), HttpStatus.OK));
+
+        if (exchange.getRequest().getHeaders().getIfNoneMatch().isEmpty()) {
+            return book;
+        }
+        return authorService.getBookVersion(authorId, bookId)
+                .flatMap(version -> exchange.checkNotModified(Responses.etagOf(version)) ? Mono.just(Responses.notModified()) : book);
+    }
+
+
+    /**
+     * This sets the path for POST requests for a new book in an author's book list
+     *
+     * @param authorId represents the id of the specific author whose book list the user is trying to create the book in
+     * @param bookObject represents the new book the user is trying to create
+     * @return the HTTP status message
+     */
+    @PostMapping(path = "/authors/{authorId}/books/")
+    public Mono<ResponseEntity<?>> createBook(@PathVariable(value = "authorId") Long authorId, @RequestBody Book bookObject) {
+        return authorService.createBook(authorId, bookObject)
+                .map(newBook -> new ResponseEntity<>(ResponseEnvelope.of("success", newBook), HttpStatus.CREATED));
+    }
+
+
+    /**
+     * This sets the path for PUT requests for an individual book. If the user sends the book's ETag in If-Match, the update only happens if the book hasn't changed since, otherwise PRECONDITION FAILED is sent
+     *
+     * @param bookId represents the id of the specific book the user is trying to update
+     * @param bookObject represents the new book the user is trying to update
+     * @param ifMatch represents the ETag of the book the user is updating, or nothing to update whatever version is current
+     * @return the HTTP status message
+     */
+    @PutMapping(path = "/authors/{authorId}/books/{bookId}/")
+    public Mono<ResponseEntity<?>> updateBook(@PathVariable(value = "bookId") Long bookId, @RequestBody Book bookObject, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = Responses.versionOf(ifMatch);
+        return authorService.updateBook(bookId, bookObject, expectedVersion)
+                .map(updatedBook -> new ResponseEntity<>(ResponseEnvelope.of("book with id " + bookId + " has been successfully updated", updatedBook), Responses.etagHeaders(updatedBook.getVersion()), HttpStatus.OK));
+    }
+
+
+    /**
+     * This sets the path for DELETE requests for an individual book
+     *
+     * @param bookId represents the id of the specific book the user is trying to delete
+     * @return the HTTP status message
+     */
+    @DeleteMapping(path = "/authors/{authorId}/books/{bookId}/")
+    public Mono<ResponseEntity<?>> deleteBook(@PathVariable(value = "bookId") Long bookId) {
+        return authorService.deleteBook(bookId)
+                .map(deletedBook -> new ResponseEntity<>(ResponseEnvelope.of("book with id " + bookId + " has been successfully deleted", deletedBook), HttpStatus.OK));
+    }
+
+
+    /**
+     * This sets the path for GET requests that export every author as NDJSON (one author per line). Authors are written as they're read, and the database is only asked for more rows as fast as the client reads them
+     *
+     * @return the stream of authors
+     */
+    @GetMapping(path = "/authors/export/", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<AuthorSummary> exportAuthors() {
+        return authorService.exportAuthors();
+    }
+
+
+    /**
+     * This sets the path for GET requests that export every book as NDJSON (one book per line, with its author's id), with the same backpressure as the author export
+     *
+     * @return the stream of books
+     */
+    @GetMapping(path = "/authors/books/export/", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Book> exportBooks() {
+        return authorService.exportBooks();
+    }
+
+
+    /**
+     * This sends CONFLICT when another request changed the same record while this one was saving it
+     *
+     * @param e represents the conflict
+     * @return the HTTP status message
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleConcurrentUpdate(OptimisticLockingFailureException e) {
+        return new ResponseEntity<>(ResponseEnvelope.of(Responses.CONCURRENT_UPDATE_MESSAGE), HttpStatus.CONFLICT);
+    }
+
+}
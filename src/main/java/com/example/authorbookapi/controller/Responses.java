@@ -0,0 +1,145 @@
+package com.example.authorbookapi.controller;
+
+import com.example.authorbookapi.dto.BatchResult;
+import com.example.authorbookapi.dto.ResponseEnvelope;
+import com.example.authorbookapi.exception.PreconditionFailedException;
+import com.example.authorbookapi.service.AuthorService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+
+// These build the responses that AuthorController and ReactiveAuthorController have in common, so both stacks answer the same way
+final class Responses {
+
+    // This is the message sent with CONFLICT when two requests change the same record at the same time
+    static final String CONCURRENT_UPDATE_MESSAGE = "the record was changed by another request at the same time, fetch it again and retry";
+
+    private Responses() {
+    }
+
+
+    /**
+     * This checks if the first page of a list is empty or not before deciding whether to send an HTTP status message of OK or NOT FOUND. When the page is full, the id of its last record is sent back as the cursor for the next page
+     *
+     * @param page represents the records in this page
+     * @param idOf represents how to get the id of a record
+     * @param after represents the cursor the user sent, or null for the first page
+     * @param limit represents the page size the user asked for
+     * @param notFoundMessage represents the message to send when there are no records at all
+     * @return the HTTP status message
+     */
+    static <T> ResponseEntity<?> pageOf(List<T> page, Function<T, Long> idOf, Long after, int limit, String notFoundMessage) {
+
+        if (page.isEmpty() && after == null) {
+            return new ResponseEntity<>(ResponseEnvelope.of(notFoundMessage), HttpStatus.NOT_FOUND);
+        } else {
+            Long cursor = page.size() == AuthorService.pageSize(limit) ? idOf.apply(page.get(page.size() - 1)) : null;
+            return new ResponseEntity<>(ResponseEnvelope.page("success", page, cursor), HttpStatus.OK);
+        }
+    }
+
+
+    /**
+     * This checks if a record exists or not before deciding whether to send its fields with an HTTP status message of OK, or NOT FOUND. If the user asked for the version, it's also sent as the ETag
+     *
+     * @param record represents the fields of the record, if it exists
+     * @param notFoundMessage represents the message to send when it doesn't
+     * @return the HTTP status message
+     */
+    static ResponseEntity<?> fieldsOf(Optional<Map<String, Object>> record, String notFoundMessage) {
+
+        if (record.isPresent()) {
+            return new ResponseEntity<>(ResponseEnvelope.of("success", record.get()), etagHeaders((Long) record.get().get("version")), HttpStatus.OK);
+        } else {
+            return new ResponseEntity<>(ResponseEnvelope.of(notFoundMessage), HttpStatus.NOT_FOUND);
+        }
+    }
+
+
+    /**
+     * This checks if a batch lookup found any records or not before deciding whether to send an HTTP status message of OK or NOT FOUND. The ids that weren't found are sent either way
+     *
+     * @param batch represents the records that were found and the ids that weren't
+     * @param notFoundMessage represents the message to send when none were found
+     * @return the HTTP status message
+     */
+    static ResponseEntity<?> batchOf(BatchResult<?> batch, String notFoundMessage) {
+
+        if (batch.getRecords().isEmpty()) {
+            return new ResponseEntity<>(ResponseEnvelope.of(notFoundMessage, batch), HttpStatus.NOT_FOUND);
+        } else {
+            return new ResponseEntity<>(ResponseEnvelope.of("success", batch), HttpStatus.OK);
+        }
+    }
+
+
+    // This is the id of a record that was read with ?fields=, which always has its id
+    static Long idOf(Map<String, Object> record) {
+        return (Long) record.get("id");
+    }
+
+
+    /**
+     * This turns a record's version into a strong ETag
+     *
+     * @param version represents the version of the record
+     * @return the ETag, in quotes
+     */
+    static String etagOf(Long version) {
+        return "\"" + version + "\"";
+    }
+
+
+    /**
+     * This builds the headers that send a record's version as its ETag, if it has one yet. The JSON, Smile and CBOR forms of a record share the same ETag, so Vary: Accept tells caches to keep a copy of each form instead of answering one Accept header with another's body
+     *
+     * @param version represents the version of the record
+     * @return the response headers
+     */
+    static HttpHeaders etagHeaders(Long version) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setVary(List.of(HttpHeaders.ACCEPT));
+
+        if (version != null) {
+            headers.setETag(etagOf(version));
+        }
+        return headers;
+    }
+
+
+    /**
+     * This sends NOT MODIFIED when the user's If-None-Match matched the record's ETag. It has the same Vary header as the full response it stands in for
+     *
+     * @return the HTTP status message
+     */
+    static <T> ResponseEntity<T> notModified() {
+        return new ResponseEntity<>(etagHeaders(null), HttpStatus.NOT_MODIFIED);
+    }
+
+
+    /**
+     * This turns the ETag the user sent in If-Match back into a version. Only strong ETags can match, so a weak or unreadable ETag throws a PreconditionFailedException
+     *
+     * @param ifMatch represents the If-Match header, which can be missing or "*" to match any version
+     * @return the version the user is updating, or null if any version will do
+     */
+    static Long versionOf(String ifMatch) {
+
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+
+        if (etag.matches("\"\\d+\"")) {
+            return Long.valueOf(etag.substring(1, etag.length() - 1));
+        } else {
+            throw new PreconditionFailedException("If-Match " + etag + " does not match the current version");
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.example.authorbookapi.dto;
+
+
+/**
+ * This is a read-only view of an author without their book list. Repository methods that return it only SELECT these three columns
+ */
+public class AuthorSummary {
+
+    private final Long id;
+    private final String firstName;
+    private final String lastName;
+
+
+    public AuthorSummary(Long id, String firstName, String lastName) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+    }
+
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+
+    @Override
+    public String toString() {
+        return "AuthorSummary{" +
+                "id=" + id +
+                ", firstName='" + firstName + '\'' +
+                ", lastName='" + lastName + '\'' +
+                '}';
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.example.authorbookapi.dto;
+
+import java.util.List;
+
+
+/**
+ * This is the answer to a batch lookup by id: the records that were found, in the order their ids were asked for, and the ids that weren't found, so one missing record doesn't fail the whole batch
+ *
+ * @param <T> represents the type of the records
+ */
+public class BatchResult<T> {
+
+    private final List<T> records;
+    private final List<Long> missingIds;
+
+
+    public BatchResult(List<T> records, List<Long> missingIds) {
+        this.records = List.copyOf(records);
+        this.missingIds = List.copyOf(missingIds);
+    }
+
+
+    public List<T> getRecords() {
+        return records;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "records=" + records.size() +
+                ", missingIds=" + missingIds +
+                '}';
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.example.authorbookapi.dto;
+
+
+/**
+ * This is a read-only copy of a book with its author's name, which is everything the search index keeps about a book. Repository methods that return it read the book and author in one query
+ */
+public class BookDocument {
+
+    private final Long id;
+    private final Long authorId;
+    private final String name;
+    private final String description;
+    private final String isbn;
+    private final String authorName;
+
+
+    public BookDocument(Long id, Long authorId, String name, String description, String isbn, String authorFirstName, String authorLastName) {
+        this.id = id;
+        this.authorId = authorId;
+        this.name = name;
+        this.description = description;
+        this.isbn = isbn;
+        this.authorName = authorFirstName + " " + authorLastName;
+    }
+
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getAuthorName() {
+        return authorName;
+    }
+
+
+    /**
+     * This makes a copy of the book with its author's new name
+     *
+     * @param author represents the author, after they were renamed
+     * @return the copy
+     */
+    public BookDocument withAuthor(AuthorSummary author) {
+        return new BookDocument(id, authorId, name, description, isbn, author.getFirstName(), author.getLastName());
+    }
+
+
+    @Override
+    public String toString() {
+        return "BookDocument{" +
+                "id=" + id +
+                ", authorId=" + authorId +
+                ", name='" + name + '\'' +
+                ", authorName='" + authorName + '\'' +
+                '}';
+    }
+
+}
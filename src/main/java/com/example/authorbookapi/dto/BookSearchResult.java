@@ -0,0 +1,58 @@
+package com.example.authorbookapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * This is one book found by a search, with its author's name and how well it matched. Results are sent best match first
+ */
+@JsonPropertyOrder({"id", "authorId", "name", "description", "isbn", "authorName", "score"})
+public class BookSearchResult {
+
+    private final BookDocument book;
+    private final double score;
+
+
+    public BookSearchResult(BookDocument book, double score) {
+        this.book = book;
+        this.score = score;
+    }
+
+
+    public Long getId() {
+        return book.getId();
+    }
+
+    public Long getAuthorId() {
+        return book.getAuthorId();
+    }
+
+    public String getName() {
+        return book.getName();
+    }
+
+    public String getDescription() {
+        return book.getDescription();
+    }
+
+    public String getIsbn() {
+        return book.getIsbn();
+    }
+
+    public String getAuthorName() {
+        return book.getAuthorName();
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+
+    @Override
+    public String toString() {
+        return "BookSearchResult{" +
+                "book=" + book +
+                ", score=" + score +
+                '}';
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.example.authorbookapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * This keeps count of what a bulk import saved, along with the rows it had to skip and why
+ */
+public class ImportResult {
+
+    private int authorsImported;
+    private int booksImported;
+    private final List<String> errors = new ArrayList<>();
+
+
+    public int getAuthorsImported() {
+        return authorsImported;
+    }
+
+    public int getBooksImported() {
+        return booksImported;
+    }
+
+    @JsonIgnore // This is sent in the 'errors' key of the response instead
+    public List<String> getErrors() {
+        return errors;
+    }
+
+
+    /**
+     * This adds the records from a chunk once its transaction has committed
+     *
+     * @param authors represents the number of authors the chunk saved
+     * @param books represents the number of books the chunk saved
+     */
+    public void addImported(int authors, int books) {
+        authorsImported += authors;
+        booksImported += books;
+    }
+
+    public void addError(String error) {
+        errors.add(error);
+    }
+
+    /**
+     * This adds everything a chunk saved and skipped to the totals for the whole import
+     *
+     * @param chunkResult represents the result of one chunk
+     */
+    public void addAll(ImportResult chunkResult) {
+        addImported(chunkResult.authorsImported, chunkResult.booksImported);
+        errors.addAll(chunkResult.errors);
+    }
+
+
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "authorsImported=" + authorsImported +
+                ", booksImported=" + booksImported +
+                ", errors=" + errors +
+                '}';
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.example.authorbookapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+
+/**
+ * This is the body every endpoint sends back. A new envelope is built for each request and can't be changed afterwards, so concurrent requests never see each other's data
+ *
+ * @param <T> represents the type of the payload in the 'data' key
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL) // This leaves keys that weren't set out of the JSON instead of sending them as null
+public final class ResponseEnvelope<T> {
+
+    private final String message;
+    private final T data;
+    private final Long cursor;
+    private final List<String> errors;
+
+
+    private ResponseEnvelope(String message, T data, Long cursor, List<String> errors) {
+        this.message = message;
+        this.data = data;
+        this.cursor = cursor;
+        this.errors = errors == null ? null : List.copyOf(errors);
+    }
+
+
+    /**
+     * This builds an envelope that only carries a message
+     *
+     * @param message represents the message for the user
+     * @return the envelope
+     */
+    public static <T> ResponseEnvelope<T> of(String message) {
+        return new ResponseEnvelope<>(message, null, null, null);
+    }
+
+    /**
+     * This builds an envelope that carries a message and a payload
+     *
+     * @param message represents the message for the user
+     * @param data represents the payload
+     * @return the envelope
+     */
+    public static <T> ResponseEnvelope<T> of(String message, T data) {
+        return new ResponseEnvelope<>(message, data, null, null);
+    }
+
+    /**
+     * This builds an envelope for one page of a list, along with the cursor for the next page
+     *
+     * @param message represents the message for the user
+     * @param data represents the page
+     * @param cursor represents the cursor for the next page, or null if this is the last page
+     * @return the envelope
+     */
+    public static <T> ResponseEnvelope<T> page(String message, T data, Long cursor) {
+        return new ResponseEnvelope<>(message, data, cursor, null);
+    }
+
+    /**
+     * This builds an envelope that carries a payload along with the problems found while producing it
+     *
+     * @param message represents the message for the user
+     * @param data represents the payload
+     * @param errors represents the problems found, or null if there were none
+     * @return the envelope
+     */
+    public static <T> ResponseEnvelope<T> withErrors(String message, T data, List<String> errors) {
+        return new ResponseEnvelope<>(message, data, null, errors == null || errors.isEmpty() ? null : errors);
+    }
+
+
+    public String getMessage() {
+        return message;
+    }
+
+    public T getData() {
+        return data;
+    }
+
+    public Long getCursor() {
+        return cursor;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+
+    @Override
+    public String toString() {
+        return "ResponseEnvelope{" +
+                "message='" + message + '\'' +
+                ", data=" + data +
+                ", cursor=" + cursor +
+                ", errors=" + errors +
+                '}';
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.example.authorbookapi.dto;
+
+
+/**
+ * This is one type-ahead suggestion, which is either an author or a book whose name starts with what the user has typed so far
+ */
+public class Suggestion {
+
+    public enum Type { AUTHOR, BOOK }
+
+    private final Type type;
+    private final Long id;
+    private final Long authorId;
+    private final String name;
+
+
+    public Suggestion(Type type, Long id, Long authorId, String name) {
+        this.type = type;
+        this.id = id;
+        this.authorId = authorId;
+        this.name = name;
+    }
+
+
+    public static Suggestion ofAuthor(AuthorSummary author) {
+        return new Suggestion(Type.AUTHOR, author.getId(), author.getId(), author.getFirstName() + " " + author.getLastName());
+    }
+
+    public static Suggestion ofBook(BookDocument book) {
+        return new Suggestion(Type.BOOK, book.getId(), book.getAuthorId(), book.getName());
+    }
+
+
+    public Type getType() {
+        return type;
+    }
+
+    // This is the id of the author or book
+    public Long getId() {
+        return id;
+    }
+
+    // This is the author's own id for an author, or the id of the book's author for a book, so the client can build the book's URL
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    // This is the author's full name or the book's name
+    public String getName() {
+        return name;
+    }
+
+
+    @Override
+    public String toString() {
+        return "Suggestion{" +
+                "type=" + type +
+                ", id=" + id +
+                ", name='" + name + '\'' +
+                '}';
+    }
+
+}
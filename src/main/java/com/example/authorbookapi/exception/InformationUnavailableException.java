@@ -0,0 +1,13 @@
+package com.example.authorbookapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class InformationUnavailableException extends RuntimeException {
+
+    public InformationUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -1,30 +1,41 @@
 package com.example.authorbookapi.model;
 
-import org.hibernate.annotations.LazyCollection;
-import org.hibernate.annotations.LazyCollectionOption;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import javax.persistence.*;
 import java.util.List;
 
 
 @Entity // This is a marker that defines that a class can be mapped to a table
-@Table(name = "authors") // This makes it a table
+@Cacheable // This keeps authors in Hibernate's second-level cache, so loading one by id again doesn't need a query
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "authors", // This makes it a table
+        uniqueConstraints = @UniqueConstraint(name = "uk_authors_first_name_last_name", columnNames = {"first_name", "last_name"}), // This stops two authors from having the same full name, and indexes the full name lookup
+        indexes = @Index(name = "idx_authors_last_name", columnList = "last_name")) // This indexes the last name lookup
 public class Author {
 
     @Id // Primary key
     @Column // This marks it as a column in the table
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // This means to generate the value for the ID as the next available integer
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "authors_seq") // This means to generate the value for the ID from a sequence. Unlike IDENTITY, the ID is known before the INSERT runs, so Hibernate can batch INSERTs
+    @SequenceGenerator(name = "authors_seq", sequenceName = "authors_seq", allocationSize = 50) // This reserves 50 IDs per trip to the sequence
     private Long id;
 
-    @Column
+    @Column(name = "first_name") // The column names are spelled out because the constraint and index on the table refer to them
     private String firstName;
 
-    @Column
+    @Column(name = "last_name")
     private String lastName;
 
+    @Version // This is bumped every time the author or one of their books changes, and is sent as the author's ETag
+    @Column
+    private Long version;
+
 
     // This links the table representing the Author model to the table representing the Book model
+    // The books are only loaded when a repository method asks for them with an entity graph or a fetch join, so listing authors doesn't run one extra query per author
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // This keeps the ids of the author's books in the second-level cache too
     @OneToMany(mappedBy = "author", orphanRemoval = true) // This means it's a one-to-many relationship that is mappedBy the variable representing the link to the other table. orphanRemoval = true means that if we delete the author, delete the book as well
-    @LazyCollection(LazyCollectionOption.FALSE) // This means when you fetch an instance of an author, fetch the associated books
     private List<Book> bookList;
 
 
@@ -62,6 +73,15 @@ public class Author {
         this.lastName = lastName;
     }
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY) // This means the version is sent with the author, but can't be changed through the request body
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
 
     /**
      * This method adds books to the author's book list
@@ -0,0 +1,98 @@
+package com.example.authorbookapi.model;
+
+import com.example.authorbookapi.dto.AuthorSummary;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+import java.util.List;
+
+
+@Table("authors") // This maps a row of the same authors table the Author entity uses, for the reactive profile's R2DBC repositories. R2DBC doesn't load relationships, so there's no book list
+public class AuthorRow {
+
+    @Id
+    private Long id;
+
+    @Column("first_name")
+    private String firstName;
+
+    @Column("last_name")
+    private String lastName;
+
+    @Version // This is the same version column as Author's, so both stacks agree on ETags. A row with no version yet is inserted, otherwise it's updated
+    private Long version;
+
+
+    public AuthorRow() {
+    }
+
+    public AuthorRow(Long id, String firstName, String lastName) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+    }
+
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+
+    /**
+     * This turns the row into the Author the API sends, so both stacks send the same JSON
+     *
+     * @param bookList represents the author's books, or null if they weren't loaded
+     * @return the author
+     */
+    public Author toAuthor(List<Book> bookList) {
+        Author author = new Author(id, firstName, lastName);
+        author.setVersion(version);
+        author.setBookList(bookList);
+        return author;
+    }
+
+    public AuthorSummary toSummary() {
+        return new AuthorSummary(id, firstName, lastName);
+    }
+
+
+    @Override
+    public String toString() {
+        return "AuthorRow{" +
+                "id=" + id +
+                ", firstName='" + firstName + '\'' +
+                ", lastName='" + lastName + '\'' +
+                ", version=" + version +
+                '}';
+    }
+
+}
@@ -1,18 +1,29 @@
 package com.example.authorbookapi.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import javax.persistence.*;
 import java.util.Optional;
 
 
 @Entity
-@Table(name = "books")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "books",
+        uniqueConstraints = @UniqueConstraint(name = "uk_books_name", columnNames = "name"), // This stops two books from having the same name, and indexes the name lookup
+        indexes = {
+                @Index(name = "idx_books_isbn", columnList = "isbn"),
+                @Index(name = "idx_books_author_id", columnList = "author_id") // This indexes the foreign key used to find an author's books
+        })
 public class Book {
 
     @Id
     @Column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
     @Column
@@ -24,13 +35,21 @@ public class Book {
     @Column
     private String isbn;
 
+    @Version // This is bumped every time the book changes, and is sent as the book's ETag
+    @Column
+    private Long version;
+
 
     // This links the table representing the Book model to the table representing the Author model
     @JsonIgnore // This prevents a stack overflow/API crashing from authors and books calling each other back and forth
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY) // This means loading a book doesn't also load its author
     @JoinColumn(name = "author_id") // This represents the foreign key in SQL joining the columns to connect the 2 tables
     private Author author;
 
+    // This is the same foreign key as a plain read-only column, so the author's id can be sent with the book without loading the author
+    @Column(name = "author_id", insertable = false, updatable = false)
+    private Long authorId;
+
 
     public Book() {
     }
@@ -40,7 +59,7 @@ public class Book {
         this.name = name;
         this.description = description;
         this.isbn = isbn;
-        this.author = author;
+        setAuthor(author);
     }
 
 
@@ -76,12 +95,32 @@ public class Book {
         this.isbn = isbn;
     }
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Author getAuthor() {
         return author;
     }
 
     public void setAuthor(Author author) {
         this.author = author;
+        this.authorId = author == null ? null : author.getId();
+    }
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY) // This means the author's id is sent with the book, but can't be changed through the request body
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    // This sets the author's id without an author, for books read by the reactive repositories
+    void setAuthorId(Long authorId) {
+        this.authorId = authorId;
     }
 
 
@@ -0,0 +1,117 @@
+package com.example.authorbookapi.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+
+@Table("books") // This maps a row of the same books table the Book entity uses, for the reactive profile's R2DBC repositories
+public class BookRow {
+
+    @Id
+    private Long id;
+
+    @Column
+    private String name;
+
+    @Column
+    private String description;
+
+    @Column
+    private String isbn;
+
+    @Column("author_id") // This is the foreign key on its own, since R2DBC doesn't load relationships
+    private Long authorId;
+
+    @Version
+    private Long version;
+
+
+    public BookRow() {
+    }
+
+    public BookRow(Long id, String name, String description, String isbn, Long authorId) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.isbn = isbn;
+        this.authorId = authorId;
+    }
+
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+
+    /**
+     * This turns the row into the Book the API sends, so both stacks send the same JSON
+     *
+     * @return the book
+     */
+    public Book toBook() {
+        Book book = new Book(id, name, description, isbn, null);
+        book.setAuthorId(authorId);
+        book.setVersion(version);
+        return book;
+    }
+
+
+    @Override
+    public String toString() {
+        return "BookRow{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", description='" + description + '\'' +
+                ", isbn='" + isbn + '\'' +
+                ", authorId=" + authorId +
+                ", version=" + version +
+                '}';
+    }
+
+}
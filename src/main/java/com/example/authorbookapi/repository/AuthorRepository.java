@@ -1,22 +1,61 @@
 package com.example.authorbookapi.repository;
 
+import com.example.authorbookapi.dto.AuthorSummary;
 import com.example.authorbookapi.model.Author;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 @Repository
-public interface AuthorRepository extends JpaRepository<Author, Long> {
+public interface AuthorRepository extends JpaRepository<Author, Long>, AuthorRepositoryCustom {
 
-    // This method finds an author by their full name
+    // This method finds an author by their full name. The result is kept in Hibernate's query cache until the authors table changes
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     Author findByFirstNameAndLastName(String authorFirstName, String authorLastName);
 
-    // This method finds an author by their last name
-    Author findByLastName(String authorLastName);
+    // This method finds every author with this last name, since more than one author can share it
+    List<Author> findByLastName(String authorLastName);
 
     // This method finds an author by their id
     Optional<Author> findById(Long authorId);
 
+    // This method finds an author by their id along with their book list in a single query
+    @EntityGraph(attributePaths = "bookList")
+    Optional<Author> findWithBookListById(Long authorId);
+
+    // This method finds only the version of an author, so a conditional GET can be answered without loading the author or their books
+    @Query("select a.version from Author a where a.id = :authorId")
+    Optional<Long> findVersionById(@Param("authorId") Long authorId);
+
+    // This method finds an author by their id and bumps their version, so the author's ETag (which covers their book list) changes when one of their books does
+    // The row isn't locked. The version is checked when it's bumped at commit, so of two book changes for the same author the second fails as a concurrent update (409) instead of waiting
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    Optional<Author> findWithVersionIncrementById(Long authorId);
+
+    // This method finds the next page of authors after the given id (keyset pagination on the primary key), selecting only the summary columns
+    List<AuthorSummary> findByIdGreaterThan(Long afterId, Pageable pageable);
+
+    // This method streams the summary of every author in id order. Rows are fetched from the database 500 at a time as the stream is read
+    @Query("select new com.example.authorbookapi.dto.AuthorSummary(a.id, a.firstName, a.lastName) from Author a order by a.id")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<AuthorSummary> streamAllSummaries();
+
+    // This method finds the authors with these ids along with their book lists in a single query
+    @Query("select distinct a from Author a left join fetch a.bookList where a.id in :authorIds order by a.id")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false")) // This removes duplicate authors in memory instead of sending DISTINCT to the database
+    List<Author> findWithBookListByIdIn(@Param("authorIds") Collection<Long> authorIds);
+
 }
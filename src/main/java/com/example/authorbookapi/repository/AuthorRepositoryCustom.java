@@ -0,0 +1,19 @@
+package com.example.authorbookapi.repository;
+
+import com.example.authorbookapi.model.Author;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * These are the AuthorRepository methods Spring Data can't derive, which AuthorRepositoryCustomImpl implements
+ */
+public interface AuthorRepositoryCustom {
+
+    // This method finds the first `limit` authors that match the specification, in the given order, selecting only the given fields
+    List<Map<String, Object>> findFields(Specification<Author> specification, Sort sort, int limit, List<String> fields);
+
+}
@@ -0,0 +1,31 @@
+package com.example.authorbookapi.repository;
+
+import com.example.authorbookapi.model.Author;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * This is the implementation of AuthorRepositoryCustom. Spring Data finds it by its name and adds its methods to AuthorRepository
+ */
+public class AuthorRepositoryCustomImpl implements AuthorRepositoryCustom {
+
+    private EntityManager entityManager;
+
+    @PersistenceContext // This injects a proxy that hands each transaction its own EntityManager
+    public void setEntityManager(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+
+    @Override
+    public List<Map<String, Object>> findFields(Specification<Author> specification, Sort sort, int limit, List<String> fields) {
+        return FieldProjections.select(entityManager, Author.class, fields, specification, sort, limit);
+    }
+
+}
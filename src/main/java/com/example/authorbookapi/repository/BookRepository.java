@@ -1,19 +1,57 @@
 package com.example.authorbookapi.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import com.example.authorbookapi.dto.BookDocument;
 import com.example.authorbookapi.model.Book;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 
-    // This method finds a book by its name
+    // This method finds a book by its name. The result is kept in Hibernate's query cache until the books table changes
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     Book findByName(String bookName);
 
+    // This method finds which of these book names are already taken, in one query on the unique name index
+    @Query("select b.name from Book b where b.name in :bookNames")
+    Set<String> findExistingNames(@Param("bookNames") Collection<String> bookNames);
+
     // This method finds a book by its id
     Optional<Book> findById(Long bookId);
 
+    // This method finds a book by its id, but only if it belongs to the given author. The author is matched on the author_id column, so the author isn't loaded
+    Optional<Book> findByIdAndAuthorId(Long bookId, Long authorId);
+
+    // This method finds only the version of a book, but only if it belongs to the given author, so a conditional GET can be answered without loading the book
+    @Query("select b.version from Book b where b.id = :bookId and b.authorId = :authorId")
+    Optional<Long> findVersionByIdAndAuthorId(@Param("bookId") Long bookId, @Param("authorId") Long authorId);
+
+    // This method streams every book in id order. Rows are fetched from the database 500 at a time as the stream is read, and aren't tracked for changes
+    @Query("select b from Book b order by b.id")
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    Stream<Book> streamAll();
+
+    // This method streams every book with its author's name in id order, reading both in one query. It's what the search index is built from
+    @Query("select new com.example.authorbookapi.dto.BookDocument(b.id, a.id, b.name, b.description, b.isbn, a.firstName, a.lastName) from Book b join b.author a order by b.id")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<BookDocument> streamAllDocuments();
+
+    // This method finds the next page of books after the given id (keyset pagination on the primary key)
+    List<Book> findByIdGreaterThan(Long afterId, Pageable pageable);
+
 }
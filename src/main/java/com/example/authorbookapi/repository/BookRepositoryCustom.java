@@ -0,0 +1,22 @@
+package com.example.authorbookapi.repository;
+
+import com.example.authorbookapi.model.Book;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * These are the BookRepository methods Spring Data can't derive, which BookRepositoryCustomImpl implements
+ */
+public interface BookRepositoryCustom {
+
+    // This method finds the first `limit` books that match the specification, in the given order. Unlike JpaSpecificationExecutor's paged findAll, it never runs a count query
+    List<Book> findPage(Specification<Book> specification, Sort sort, int limit);
+
+    // This method does the same as findPage, but selects only the given fields
+    List<Map<String, Object>> findFields(Specification<Book> specification, Sort sort, int limit, List<String> fields);
+
+}
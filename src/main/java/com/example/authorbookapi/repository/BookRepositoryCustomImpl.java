@@ -0,0 +1,52 @@
+package com.example.authorbookapi.repository;
+
+import com.example.authorbookapi.model.Book;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+
+/**
+ * This is the implementation of BookRepositoryCustom. Spring Data finds it by its name and adds its methods to BookRepository
+ */
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private EntityManager entityManager;
+
+    @PersistenceContext // This injects a proxy that hands each transaction its own EntityManager
+    public void setEntityManager(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+
+    @Override
+    public List<Book> findPage(Specification<Book> specification, Sort sort, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = builder.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+
+        Predicate predicate = specification.toPredicate(book, query, builder);
+
+        query.select(book).orderBy(toOrders(sort, book, builder));
+        if (predicate != null) { // This is null when no filters were given
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findFields(Specification<Book> specification, Sort sort, int limit, List<String> fields) {
+        return FieldProjections.select(entityManager, Book.class, fields, specification, sort, limit);
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.example.authorbookapi.repository;
+
+import com.example.authorbookapi.model.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.Locale;
+
+
+/**
+ * These are the filters the book list can be narrowed down with. Each one is a Specification, so they can be combined with and() into a single WHERE clause that runs in the database.
+ * Only hasAuthorId and isbnStartsWith can use an index (idx_books_author_id and idx_books_isbn). nameContains can't, so AuthorService only allows it together with one of them
+ */
+public final class BookSpecifications {
+
+    // This is the character used to escape % and _ in the text the user sends, so they're matched literally
+    private static final char LIKE_ESCAPE = '\\';
+
+    private BookSpecifications() {
+    }
+
+
+    // This matches one book, on its primary key
+    public static Specification<Book> hasId(Long bookId) {
+        return (book, query, builder) -> builder.equal(book.get("id"), bookId);
+    }
+
+    // This matches the books of one author, on the indexed author_id column
+    public static Specification<Book> hasAuthorId(Long authorId) {
+        return (book, query, builder) -> builder.equal(book.get("authorId"), authorId);
+    }
+
+    // This matches the books whose ISBN starts with the prefix. A LIKE with no leading wildcard is a range scan on idx_books_isbn
+    public static Specification<Book> isbnStartsWith(String prefix) {
+        return (book, query, builder) -> builder.like(book.get("isbn"), escapeLike(prefix) + "%", LIKE_ESCAPE);
+    }
+
+    // This matches the books whose name contains the text, ignoring case. The leading wildcard means every row it's applied to has to be read, so it should only narrow down rows another filter has already found
+    public static Specification<Book> nameContains(String text) {
+        return (book, query, builder) -> builder.like(builder.lower(book.get("name")), "%" + escapeLike(text.toLowerCase(Locale.ROOT)) + "%", LIKE_ESCAPE);
+    }
+
+
+    /**
+     * This matches the books that come after the given book in the list's order, which is how a page starts where the previous one ended (keyset pagination).
+     * The list is ordered by the sort column and then by id, so a book comes after the cursor if its sort value is past the cursor's, or the same and its id is past the cursor's
+     *
+     * @param afterId represents the id of the last book on the previous page
+     * @param sortField represents the column the list is sorted by, which has to be id or a column that's never null
+     * @param descending represents whether the list is sorted in descending order
+     * @return the Specification
+     */
+    public static Specification<Book> after(Long afterId, String sortField, boolean descending) {
+        return (book, query, builder) -> {
+            Path<Long> id = book.get("id");
+
+            if ("id".equals(sortField)) {
+                return descending ? builder.lessThan(id, afterId) : builder.greaterThan(id, afterId);
+            }
+
+            // This reads the cursor book's sort value in the same query, so the cursor can stay a plain id
+            Subquery<String> cursorValue = query.subquery(String.class);
+            Root<Book> cursor = cursorValue.from(Book.class);
+            cursorValue.select(cursor.get(sortField)).where(builder.equal(cursor.get("id"), afterId));
+
+            Path<String> value = book.get(sortField);
+            return builder.or(
+                    descending ? builder.lessThan(value, cursorValue) : builder.greaterThan(value, cursorValue),
+                    builder.and(builder.equal(value, cursorValue), descending ? builder.lessThan(id, afterId) : builder.greaterThan(id, afterId)));
+        };
+    }
+
+
+    // This escapes the LIKE wildcards in the user's text
+    static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+}
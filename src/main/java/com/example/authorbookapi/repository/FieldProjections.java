@@ -0,0 +1,63 @@
+package com.example.authorbookapi.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+
+/**
+ * This runs queries that SELECT only the columns a user asked for with ?fields=, and returns each row as a map from field name to value, in the order the fields were asked for.
+ * The rows are read as tuples, so no entities are created, nothing is put in the persistence context and the columns that weren't asked for never leave the database
+ */
+final class FieldProjections {
+
+    private FieldProjections() {
+    }
+
+
+    /**
+     * This finds the first `limit` rows that match the specification, in the given order, with only the given fields
+     *
+     * @param entityManager represents the EntityManager of the current transaction
+     * @param type represents the entity to read
+     * @param fields represents the names of the entity's basic attributes to select, which the caller has already checked
+     * @param specification represents the rows to read
+     * @param sort represents the order of the rows
+     * @param limit represents the most rows to read
+     * @return the rows, each as a map from field name to value
+     */
+    static <T> List<Map<String, Object>> select(EntityManager entityManager, Class<T> type, List<String> fields, Specification<T> specification, Sort sort, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<T> root = query.from(type);
+        Predicate predicate = specification.toPredicate(root, query, builder);
+
+        List<Selection<?>> selections = fields.stream().map(field -> root.get(field).alias(field)).collect(Collectors.toList());
+        query.multiselect(selections).orderBy(toOrders(sort, root, builder));
+        if (predicate != null) { // This is null when no filters were given
+            query.where(predicate);
+        }
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultStream()
+                .map(tuple -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    fields.forEach(field -> row.put(field, tuple.get(field)));
+                    return row;
+                })
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.example.authorbookapi.repository;
+
+import com.example.authorbookapi.model.AuthorRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+// This is the reactive profile's version of AuthorRepository. It reads and writes the same authors table over R2DBC, without blocking a thread while the database works
+@Repository
+public interface ReactiveAuthorRepository extends R2dbcRepository<AuthorRow, Long> {
+
+    // This method takes the next id from the same sequence Hibernate uses, so authors saved by either stack never get the same id
+    @Query("SELECT NEXT VALUE FOR authors_seq")
+    Mono<Long> nextId();
+
+    // This method finds the next page of authors after the given id (keyset pagination on the primary key)
+    @Query("SELECT * FROM authors WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<AuthorRow> findPageAfter(Long afterId, int limit);
+
+    // This method streams every author in id order. Rows are only read from the database as fast as the caller asks for them
+    @Query("SELECT * FROM authors ORDER BY id")
+    Flux<AuthorRow> streamAll();
+
+    // This method finds only the version of an author, so a conditional GET can be answered without loading the author or their books
+    @Query("SELECT version FROM authors WHERE id = :authorId")
+    Mono<Long> findVersionById(Long authorId);
+
+    // This method bumps an author's version because their book list changed. The increment happens in the database, so two book changes for the same author can't lose one of the bumps
+    @Modifying
+    @Query("UPDATE authors SET version = version + 1 WHERE id = :authorId")
+    Mono<Integer> incrementVersion(Long authorId);
+
+}
@@ -0,0 +1,49 @@
+package com.example.authorbookapi.repository;
+
+import com.example.authorbookapi.model.BookRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Collection;
+
+
+// This is the reactive profile's version of BookRepository. It reads and writes the same books table over R2DBC
+@Repository
+public interface ReactiveBookRepository extends R2dbcRepository<BookRow, Long> {
+
+    // This method takes the next id from the same sequence Hibernate uses
+    @Query("SELECT NEXT VALUE FOR books_seq")
+    Mono<Long> nextId();
+
+    // This method finds a book by its id, but only if it belongs to the given author
+    Mono<BookRow> findByIdAndAuthorId(Long bookId, Long authorId);
+
+    // This method finds an author's books in id order
+    @Query("SELECT * FROM books WHERE author_id = :authorId ORDER BY id")
+    Flux<BookRow> findByAuthorId(Long authorId);
+
+    // This method finds the books of all of these authors in one query
+    @Query("SELECT * FROM books WHERE author_id IN (:authorIds) ORDER BY id")
+    Flux<BookRow> findByAuthorIdIn(Collection<Long> authorIds);
+
+    // This method finds the next page of books after the given id (keyset pagination on the primary key)
+    @Query("SELECT * FROM books WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<BookRow> findPageAfter(Long afterId, int limit);
+
+    // This method streams every book in id order. Rows are only read from the database as fast as the caller asks for them
+    @Query("SELECT * FROM books ORDER BY id")
+    Flux<BookRow> streamAll();
+
+    // This method finds only the version of a book, but only if it belongs to the given author
+    @Query("SELECT version FROM books WHERE id = :bookId AND author_id = :authorId")
+    Mono<Long> findVersionByIdAndAuthorId(Long bookId, Long authorId);
+
+    // This method deletes all of an author's books in one statement, since R2DBC doesn't cascade deletes like orphanRemoval does
+    @Modifying
+    @Query("DELETE FROM books WHERE author_id = :authorId")
+    Mono<Integer> deleteByAuthorId(Long authorId);
+
+}
@@ -0,0 +1,214 @@
+package com.example.authorbookapi.search;
+
+import com.example.authorbookapi.dto.AuthorSummary;
+import com.example.authorbookapi.dto.BookDocument;
+import com.example.authorbookapi.dto.Suggestion;
+import com.example.authorbookapi.repository.AuthorRepository;
+import com.example.authorbookapi.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+
+/**
+ * This is an in-memory sorted index of every author's first and last name and every book's name, so type-ahead suggestions can be found by prefix without querying the database.
+ * Names are kept in a ConcurrentSkipListMap, so finding the suggestions for a prefix is one O(log n) seek followed by reading the next few entries, however many names share the prefix.
+ * Lookups don't take a lock. Changes are applied one at a time once they're committed, in the same way as BookSearchIndex
+ */
+@Component
+@Profile("!reactive") // The reactive stack writes through R2DBC and publishes no CatalogChangedEvents, so the index would never be updated there
+public class AutocompleteIndex {
+
+    // This separates a name from the type and id that make its key unique, and sorts before every other character so "ann" comes before "anne"
+    private static final char SEPARATOR = '\u0000';
+
+    // This is swapped for a new one, in a single write, when the index is rebuilt, so a lookup sees either the whole old index or the whole new one. It's null until the first build has finished
+    private volatile Names names;
+
+    private AuthorRepository authorRepository;
+    private BookRepository bookRepository;
+
+
+    @Autowired
+    public void setAuthorRepository(AuthorRepository authorRepository) {
+        this.authorRepository = authorRepository;
+    }
+
+    @Autowired
+    public void setBookRepository(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+
+    /**
+     * This indexes every author and book in the database, replacing whatever was indexed before. It runs once the app has started, after the seed data is saved.
+     * The new index is built off to the side and only swapped in once it's complete, so lookups keep using the old one until then
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true) // The streams read from open result sets, so the transaction has to stay open until they're finished
+    public synchronized void rebuild() {
+        Names rebuilt = new Names();
+        try (Stream<AuthorSummary> authors = authorRepository.streamAllSummaries()) {
+            authors.forEach(rebuilt::putAuthor);
+        }
+        try (Stream<BookDocument> books = bookRepository.streamAllDocuments()) {
+            books.forEach(rebuilt::putBook);
+        }
+        names = rebuilt;
+    }
+
+
+    // This is false until the index has been built for the first time, and lookups can't be answered yet
+    public boolean isReady() {
+        return names != null;
+    }
+
+
+    /**
+     * This updates the index once a change to an author or book is committed. Changes that are rolled back never reach it
+     *
+     * @param event represents the change
+     */
+    @TransactionalEventListener
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        Names current = names;
+
+        // A change committed before the first build is already in the database the build reads from
+        if (current == null) {
+            return;
+        }
+        switch (event.getChange()) {
+            case AUTHOR_SAVED:
+                current.removeAuthor(event.getId());
+                current.putAuthor(event.getAuthor());
+                break;
+            case AUTHOR_DELETED:
+                current.removeAuthor(event.getId());
+                new ArrayList<>(current.bookIdsByAuthor.getOrDefault(event.getId(), Set.of())).forEach(current::removeBook);
+                break;
+            case BOOK_SAVED:
+                current.removeBook(event.getId());
+                current.putBook(event.getBook());
+                break;
+            case BOOK_DELETED:
+                current.removeBook(event.getId());
+                break;
+        }
+    }
+
+
+    /**
+     * This finds the authors and books with a name that starts with the prefix, in alphabetical order. An author matches on either their first or last name, but is only suggested once
+     *
+     * @param prefix represents what the user has typed so far. Case and surrounding spaces are ignored
+     * @param limit represents the most suggestions to return
+     * @return the matching authors and books, in alphabetical order of the name that matched
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        Names current = names;
+
+        if (key.isEmpty() || current == null) {
+            return List.of();
+        }
+
+        // Every key that starts with the prefix sorts between the prefix itself and the prefix followed by the highest character
+        NavigableMap<String, Suggestion> matches = current.entries.subMap(key, true, key + Character.MAX_VALUE, false);
+        Map<String, Suggestion> suggestions = new LinkedHashMap<>();
+        for (Suggestion suggestion : matches.values()) {
+            suggestions.putIfAbsent(suggestion.getType() + ":" + suggestion.getId(), suggestion);
+            if (suggestions.size() == limit) {
+                break;
+            }
+        }
+        return new ArrayList<>(suggestions.values());
+    }
+
+
+    // This is how many names are indexed. Each author is indexed under both of their names
+    public int size() {
+        Names current = names;
+        return current == null ? 0 : current.entries.size();
+    }
+
+
+    // Two authors or books can share a name, so the type and id are added to keep their keys apart
+    private static String keyOf(String name, Suggestion suggestion) {
+        return normalize(name) + SEPARATOR + suggestion.getType() + SEPARATOR + suggestion.getId();
+    }
+
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * These are the indexed names, and what's needed to remove an author's or book's names again when they're renamed or deleted. Only entries is read without holding the lock on the index
+     */
+    private static class Names {
+
+        private final ConcurrentSkipListMap<String, Suggestion> entries = new ConcurrentSkipListMap<>();
+        private final Map<Long, List<String>> authorKeys = new HashMap<>();
+        private final Map<Long, String> bookKeys = new HashMap<>();
+        private final Map<Long, Set<Long>> bookIdsByAuthor = new HashMap<>();
+
+
+        // This has to be called while holding the lock on the index, or before the Names are published
+        void putAuthor(AuthorSummary author) {
+            Suggestion suggestion = Suggestion.ofAuthor(author);
+            List<String> keys = List.of(keyOf(author.getLastName(), suggestion), keyOf(author.getFirstName(), suggestion));
+            keys.forEach(key -> entries.put(key, suggestion));
+            authorKeys.put(author.getId(), keys);
+        }
+
+
+        // This has to be called while holding the lock on the index, or before the Names are published
+        void removeAuthor(Long authorId) {
+            List<String> keys = authorKeys.remove(authorId);
+
+            if (keys != null) {
+                keys.forEach(entries::remove);
+            }
+        }
+
+
+        // This has to be called while holding the lock on the index, or before the Names are published
+        void putBook(BookDocument book) {
+            Suggestion suggestion = Suggestion.ofBook(book);
+            String key = keyOf(book.getName(), suggestion);
+            entries.put(key, suggestion);
+            bookKeys.put(book.getId(), key);
+            bookIdsByAuthor.computeIfAbsent(book.getAuthorId(), authorId -> new HashSet<>()).add(book.getId());
+        }
+
+
+        // This has to be called while holding the lock on the index, or before the Names are published
+        void removeBook(Long bookId) {
+            String key = bookKeys.remove(bookId);
+
+            if (key != null) {
+                Suggestion suggestion = entries.remove(key);
+                bookIdsByAuthor.computeIfPresent(suggestion.getAuthorId(), (authorId, bookIds) -> {
+                    bookIds.remove(bookId);
+                    return bookIds.isEmpty() ? null : bookIds;
+                });
+            }
+        }
+    }
+
+}
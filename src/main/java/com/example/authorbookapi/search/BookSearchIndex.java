@@ -0,0 +1,227 @@
+package com.example.authorbookapi.search;
+
+import com.example.authorbookapi.dto.BookDocument;
+import com.example.authorbookapi.dto.BookSearchResult;
+import com.example.authorbookapi.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * This is an in-memory inverted index of every book's name, description and author's name, so books can be searched by any word in them without scanning the books table.
+ * It's built from the database when the app starts, then kept up to date from the CatalogChangedEvents that AuthorService publishes, once each change is committed.
+ * Searches take the read lock and changes take the write lock, so a search never sees a book that's only half indexed
+ */
+@Component
+@Profile("!reactive") // The reactive stack writes through R2DBC and publishes no CatalogChangedEvents, so the index would never be updated there
+public class BookSearchIndex {
+
+    // A word in a book's name counts for more than the same word in its author's name, which counts for more than the same word in its description
+    static final float NAME_WEIGHT = 3;
+    static final float AUTHOR_WEIGHT = 2;
+    static final float DESCRIPTION_WEIGHT = 1;
+
+    private final Map<Long, BookDocument> books = new HashMap<>();
+    private final Map<Long, Set<Long>> bookIdsByAuthor = new HashMap<>();
+    // This maps each word to the books it appears in, and how much it counts for in each one
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // This is false until the index has been built for the first time, and searches can't be answered yet
+    private volatile boolean ready;
+
+    private BookRepository bookRepository;
+
+
+    @Autowired
+    public void setBookRepository(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+
+    /**
+     * This indexes every book in the database, replacing whatever was indexed before. It runs once the app has started, after the seed data is saved
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true) // The stream reads from an open result set, so the transaction has to stay open until it's finished
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            books.clear();
+            bookIdsByAuthor.clear();
+            postings.clear();
+            try (Stream<BookDocument> documents = bookRepository.streamAllDocuments()) {
+                documents.forEach(this::add);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * This updates the index once a change to an author or book is committed. Changes that are rolled back never reach it
+     *
+     * @param event represents the change
+     */
+    @TransactionalEventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            switch (event.getChange()) {
+                case BOOK_SAVED:
+                    remove(event.getId());
+                    add(event.getBook());
+                    break;
+                case BOOK_DELETED:
+                    remove(event.getId());
+                    break;
+                case AUTHOR_SAVED:
+                    // The author's name is indexed with each of their books, so their books are indexed again under the new name
+                    for (Long bookId : new ArrayList<>(bookIdsByAuthor.getOrDefault(event.getId(), Set.of()))) {
+                        BookDocument book = books.get(bookId);
+                        remove(bookId);
+                        add(book.withAuthor(event.getAuthor()));
+                    }
+                    break;
+                case AUTHOR_DELETED:
+                    new ArrayList<>(bookIdsByAuthor.getOrDefault(event.getId(), Set.of())).forEach(this::remove);
+                    break;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * This finds the books that contain any of the words in the query, best match first. A book scores more for each query word it contains, for words in more important fields, and for rarer words (the word's inverse document frequency)
+     *
+     * @param query represents the words to search for. Case and punctuation are ignored
+     * @param limit represents the most books to return
+     * @return the matching books, best match first
+     */
+    public List<BookSearchResult> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        Map<Long, Float> scores = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            for (String term : terms) {
+                Map<Long, Float> matches = postings.get(term);
+
+                if (matches != null) {
+                    float idf = (float) Math.log(1 + (double) books.size() / matches.size());
+                    matches.forEach((bookId, weight) -> scores.merge(bookId, weight * idf, Float::sum));
+                }
+            }
+
+            // This keeps only the best `limit` matches in a min-heap, so the results aren't sorted in full. Ties go to the lower id, so results are stable
+            Comparator<Map.Entry<Long, Float>> worstFirst = Map.Entry.<Long, Float>comparingByValue().thenComparing(Map.Entry.<Long, Float>comparingByKey().reversed());
+            PriorityQueue<Map.Entry<Long, Float>> best = new PriorityQueue<>(worstFirst);
+            for (Map.Entry<Long, Float> score : scores.entrySet()) {
+                best.add(score);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<BookSearchResult> results = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                Map.Entry<Long, Float> score = best.poll();
+                results.add(new BookSearchResult(books.get(score.getKey()), Math.round(score.getValue() * 1000) / 1000.0));
+            }
+            Collections.reverse(results);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    public boolean isReady() {
+        return ready;
+    }
+
+
+    // This is how many books are indexed
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return books.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // This has to be called with the write lock held
+    private void add(BookDocument book) {
+        Map<String, Float> weights = new HashMap<>();
+        tokenize(book.getName()).forEach(term -> weights.merge(term, NAME_WEIGHT, Float::sum));
+        tokenize(book.getAuthorName()).forEach(term -> weights.merge(term, AUTHOR_WEIGHT, Float::sum));
+        tokenize(book.getDescription()).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Float::sum));
+
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(book.getId(), weight));
+        books.put(book.getId(), book);
+        bookIdsByAuthor.computeIfAbsent(book.getAuthorId(), key -> new HashSet<>()).add(book.getId());
+    }
+
+
+    // This has to be called with the write lock held
+    private void remove(Long bookId) {
+        BookDocument book = books.remove(bookId);
+
+        if (book != null) {
+            Stream.of(book.getName(), book.getAuthorName(), book.getDescription())
+                    .flatMap(text -> tokenize(text).stream())
+                    .distinct()
+                    .forEach(term -> postings.computeIfPresent(term, (key, matches) -> {
+                        matches.remove(bookId);
+                        return matches.isEmpty() ? null : matches;
+                    }));
+            bookIdsByAuthor.computeIfPresent(book.getAuthorId(), (key, bookIds) -> {
+                bookIds.remove(bookId);
+                return bookIds.isEmpty() ? null : bookIds;
+            });
+        }
+    }
+
+
+    /**
+     * This splits text into lower case words, dropping punctuation
+     *
+     * @param text represents the text to split, which can be null
+     * @return the words, in order, including repeats
+     */
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.example.authorbookapi.search;
+
+import com.example.authorbookapi.dto.AuthorSummary;
+import com.example.authorbookapi.dto.BookDocument;
+import com.example.authorbookapi.model.Author;
+import com.example.authorbookapi.model.Book;
+
+
+/**
+ * This is published by AuthorService whenever an author or book is saved or deleted, so the in-memory indexes can be updated once the change is committed.
+ * It copies what the indexes need when it's created, so it can be read after the transaction (and the entities' persistence context) has ended
+ */
+public class CatalogChangedEvent {
+
+    public enum Change { AUTHOR_SAVED, AUTHOR_DELETED, BOOK_SAVED, BOOK_DELETED }
+
+    private final Change change;
+    private final Long id;
+    private final AuthorSummary author;
+    private final BookDocument book;
+
+    private CatalogChangedEvent(Change change, Long id, AuthorSummary author, BookDocument book) {
+        this.change = change;
+        this.id = id;
+        this.author = author;
+        this.book = book;
+    }
+
+
+    public static CatalogChangedEvent authorSaved(Author author) {
+        return new CatalogChangedEvent(Change.AUTHOR_SAVED, author.getId(), new AuthorSummary(author.getId(), author.getFirstName(), author.getLastName()), null);
+    }
+
+    // This also means every one of the author's books was deleted
+    public static CatalogChangedEvent authorDeleted(Long authorId) {
+        return new CatalogChangedEvent(Change.AUTHOR_DELETED, authorId, null, null);
+    }
+
+    // The book's author has to be set, since their name is indexed with the book
+    public static CatalogChangedEvent bookSaved(Book book) {
+        Author author = book.getAuthor();
+        return new CatalogChangedEvent(Change.BOOK_SAVED, book.getId(), null,
+                new BookDocument(book.getId(), author.getId(), book.getName(), book.getDescription(), book.getIsbn(), author.getFirstName(), author.getLastName()));
+    }
+
+    public static CatalogChangedEvent bookDeleted(Long bookId) {
+        return new CatalogChangedEvent(Change.BOOK_DELETED, bookId, null, null);
+    }
+
+
+    public Change getChange() {
+        return change;
+    }
+
+    // This is the id of the author or book that changed
+    public Long getId() {
+        return id;
+    }
+
+    // This is only set when an author was saved
+    public AuthorSummary getAuthor() {
+        return author;
+    }
+
+    // This is only set when a book was saved
+    public BookDocument getBook() {
+        return book;
+    }
+
+
+    @Override
+    public String toString() {
+        return "CatalogChangedEvent{" +
+                "change=" + change +
+                ", id=" + id +
+                '}';
+    }
+
+}
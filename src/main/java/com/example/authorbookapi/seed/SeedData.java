@@ -26,6 +26,11 @@ public class SeedData implements CommandLineRunner {
     @Override
     public void run(String... args) throws Exception {
 
+        // This leaves the data alone when the database already has authors, e.g. when a second instance or test context starts on the same database, since saving the same names and ISBNs again would break their unique constraints
+        if (authorRepository.count() > 0) {
+            return;
+        }
+
         Author author1 = new Author();
         author1.setFirstName("George R.R.");
         author1.setLastName("Martin");
@@ -1,22 +1,101 @@
 package com.example.authorbookapi.service;
 
+import com.example.authorbookapi.config.CacheConfig;
+import com.example.authorbookapi.dto.AuthorSummary;
+import com.example.authorbookapi.dto.BatchResult;
+import com.example.authorbookapi.dto.BookSearchResult;
+import com.example.authorbookapi.dto.ImportResult;
+import com.example.authorbookapi.dto.Suggestion;
 import com.example.authorbookapi.exception.InformationExistException;
+import com.example.authorbookapi.exception.InformationInvalidException;
 import com.example.authorbookapi.exception.InformationNotFoundException;
+import com.example.authorbookapi.exception.InformationUnavailableException;
+import com.example.authorbookapi.exception.PreconditionFailedException;
 import com.example.authorbookapi.model.Author;
 import com.example.authorbookapi.model.Book;
 import com.example.authorbookapi.repository.AuthorRepository;
 import com.example.authorbookapi.repository.BookRepository;
+import com.example.authorbookapi.repository.BookSpecifications;
+import com.example.authorbookapi.search.AutocompleteIndex;
+import com.example.authorbookapi.search.BookSearchIndex;
+import com.example.authorbookapi.search.CatalogChangedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.Collectors;
 
 
 @Service
+@Profile("!reactive") // ReactiveAuthorService serves the reactive profile, and the search and autocomplete indexes this uses aren't created there
+@Timed(value = AuthorService.METRIC_NAME, histogram = true) // This times every public method, tagged with its name and the exception it threw, if any. Calls answered from the authors or books cache don't get this far and are counted in cache.gets instead
 public class AuthorService {
 
+    // This is the name of the timer recorded for every method, e.g. author.service{method="getBookById",exception="none"}
+    public static final String METRIC_NAME = "author.service";
+
+    // These are the columns the filtered book list can be sorted by. Both are indexed and unique, so a page can always start where the previous one ended
+    public static final Set<String> BOOK_SORT_FIELDS = Set.of("id", "name");
+
+    // These are the fields that can be asked for with ?fields=. The id is always sent, so a page's cursor can be worked out
+    public static final List<String> AUTHOR_FIELDS = List.of("id", "firstName", "lastName", "version");
+    public static final List<String> BOOK_FIELDS = List.of("id", "name", "description", "isbn", "authorId", "version");
+
+
+    // This is the largest page a client can ask for, so a single request can never pull the whole catalog into memory
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // This is the most ids a batch lookup reads in one IN list. Bigger batches are read in chunks of this size, so the statement stays small and its shape (padded by Hibernate) can be reused
+    public static final int BATCH_CHUNK_SIZE = 100;
+
+    // This is the number of feed rows a bulk import saves per transaction. Hibernate sends each chunk's INSERTs in JDBC batches
+    public static final int IMPORT_CHUNK_SIZE = 500;
+
     private AuthorRepository authorRepository;
     private BookRepository bookRepository;
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate readOnlyTransactionTemplate;
+    private EntityManager entityManager;
+    private CacheManager cacheManager;
+    private ApplicationEventPublisher eventPublisher;
+    private BookSearchIndex bookSearchIndex;
+    private AutocompleteIndex autocompleteIndex;
+    // These make concurrent cache misses for the same author or book share one database load
+    private SingleFlight<Long, Optional<Author>> authorLoads;
+    private SingleFlight<List<Long>, Optional<Book>> bookLoads;
 
 
     @Autowired // This enables us to use the methods from JpaRepository
@@ -29,25 +108,133 @@ public class AuthorService {
         this.bookRepository = bookRepository;
     }
 
+    @PersistenceContext // This injects a proxy that hands each transaction its own EntityManager
+    public void setEntityManager(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Autowired
+    public void setCacheManager(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Autowired
+    public void setTransactionTemplate(TransactionTemplate transactionTemplate) {
+        this.transactionTemplate = transactionTemplate;
+        // This runs the single-flight loads, which start their own read-only transaction instead of running in their callers'
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @Autowired
+    public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Autowired
+    public void setBookSearchIndex(BookSearchIndex bookSearchIndex) {
+        this.bookSearchIndex = bookSearchIndex;
+    }
+
+    @Autowired
+    public void setAutocompleteIndex(AutocompleteIndex autocompleteIndex) {
+        this.autocompleteIndex = autocompleteIndex;
+    }
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.authorLoads = new SingleFlight<>("author", meterRegistry);
+        this.bookLoads = new SingleFlight<>("book", meterRegistry);
+    }
+
 
     /**
-     * This is a GET request that checks to see if the list of authors is empty before either throwing an InformationNotFoundException, or  returning the list of authors
+     * This is a GET request that returns one page of authors ordered by id, starting after the given cursor. Only the authors' ids and names are loaded
      *
-     * @return a list of all authors
+     * @param after represents the id of the last author from the previous page, or null for the first page
+     * @param limit represents the maximum number of authors to return
+     * @return a page of author summaries
      */
-    public List<Author> getAllAuthors() {
-        return authorRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<AuthorSummary> getAllAuthors(Long after, int limit) {
+        return authorRepository.findByIdGreaterThan(after == null ? 0L : after, firstPage(limit));
     }
 
 
     /**
-     * This is a GET request that checks to see if an individual author exists before either returning it, or throwing an InformationNotFoundException
+     * This is a GET request that returns one page of authors ordered by id, starting after the given cursor, with only the fields the user asked for
+     *
+     * @param after represents the id of the last author from the previous page, or null for the first page
+     * @param limit represents the maximum number of authors to return
+     * @param fields represents a comma separated list of the fields the user wants, out of AUTHOR_FIELDS. The id is always sent
+     * @return a page of authors, each with only the fields the user asked for
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAuthorFields(Long after, int limit, String fields) {
+        List<String> selected = selectedFields(fields, AUTHOR_FIELDS, "authors");
+        long afterId = after == null ? 0L : after;
+        return authorRepository.findFields((author, query, builder) -> builder.greaterThan(author.get("id"), afterId), Sort.by("id"), pageSize(limit), selected);
+    }
+
+
+    /**
+     * This is a GET request that returns an individual author with only the fields the user asked for. The author's book list is never loaded, which is where most of an author's size comes from
+     *
+     * @param authorId represents the id of the specific author the user is trying to get
+     * @param fields represents a comma separated list of the fields the user wants, out of AUTHOR_FIELDS. The id is always sent
+     * @return the author's fields if the author exists
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getAuthorFieldsById(Long authorId, String fields) {
+        List<String> selected = selectedFields(fields, AUTHOR_FIELDS, "authors");
+        return authorRepository.findFields((author, query, builder) -> builder.equal(author.get("id"), authorId), Sort.unsorted(), 1, selected).stream().findFirst();
+    }
+
+
+    /**
+     * This is a GET request that returns the authors with the given ids, with their book lists, in the order the ids were asked for. Authors already in the authors cache are taken from it, and the rest are read with a fetch join in chunks of BATCH_CHUNK_SIZE ids and put in the cache.
+     * Ids that don't belong to an author are sent back as missing instead of failing the whole batch
+     *
+     * @param authorIds represents the ids of the authors the user wants, at most MAX_PAGE_SIZE of them
+     * @return the authors that were found and the ids that weren't
+     */
+    @Transactional(readOnly = true) // No connection is taken from the pool unless some authors weren't in the cache
+    public BatchResult<Author> getAuthorsByIds(List<Long> authorIds) {
+        return lookUpByIds(authorIds, "authors", CacheConfig.AUTHORS_CACHE, Author.class, authorRepository::findWithBookListByIdIn, Author::getId);
+    }
+
+
+    /**
+     * This is a GET request that returns one page of authors ordered by id along with their book lists. The page is found first, then its authors and their books are loaded with one fetch join, so it always takes two queries no matter how many authors or books there are
+     *
+     * @param after represents the id of the last author from the previous page, or null for the first page
+     * @param limit represents the maximum number of authors to return
+     * @return a page of authors with their books
+     */
+    @Transactional(readOnly = true)
+    public List<Author> getAllAuthorsWithBooks(Long after, int limit) {
+        List<Long> authorIds = getAllAuthors(after, limit).stream()
+                .map(AuthorSummary::getId)
+                .collect(Collectors.toList());
+
+        if (authorIds.isEmpty()) {
+            return List.of();
+        }
+        return authorRepository.findWithBookListByIdIn(authorIds);
+    }
+
+
+    /**
+     * This is a GET request that checks to see if an individual author exists before either returning it, or throwing an InformationNotFoundException. Authors that are found are cached with their book list until they or their books change.
+     * When the author isn't cached, concurrent calls for them share one load through authorLoads, so a burst of requests for a popular author sends one query instead of one each.
+     * Only the load runs in a (read-only) transaction, so the author every caller gets back is detached, and never managed by another caller's persistence context
      *
      * @param authorId represents the id of the specific author the user is trying to get
      * @return author by id if it exists
      */
+    @Cacheable(cacheNames = CacheConfig.AUTHORS_CACHE, key = "#authorId")
     public Optional<Author> getAuthorById(Long authorId) {
-        Optional<Author> authorOptional = authorRepository.findById(authorId);
+        Optional<Author> authorOptional = authorLoads.load(authorId, () -> readOnlyTransactionTemplate.execute(status -> authorRepository.findWithBookListById(authorId)));
 
         if (authorOptional.isPresent()) {
             return authorOptional;
@@ -58,37 +245,68 @@ public class AuthorService {
 
 
     /**
-     * This is a POST request that checks to see if an author already exists before either throwing an InformationExistException, or saving the newly created author to the repository
+     * This is a GET request that checks to see if an individual author exists before either returning their version, or throwing an InformationNotFoundException. A cached author's version is used if there is one, otherwise only the version column is read, so the author and their books aren't loaded
+     *
+     * @param authorId represents the id of the specific author the user is trying to get
+     * @return the author's version
+     */
+    @Transactional(readOnly = true)
+    public Long getAuthorVersion(Long authorId) {
+        Author cachedAuthor = cacheManager.getCache(CacheConfig.AUTHORS_CACHE).get(authorId, Author.class);
+
+        if (cachedAuthor != null) {
+            return cachedAuthor.getVersion();
+        }
+        return authorRepository.findVersionById(authorId)
+                .orElseThrow(() -> new InformationNotFoundException("author with id " + authorId + " not found"));
+    }
+
+
+    /**
+     * This is a POST request that saves the newly created author to the repository, or throws an InformationExistException if the unique constraint on the author's full name says they already exist. Letting the database check means there's no extra lookup, and two requests for the same author can't both get in
      *
      * @param authorObject represents the new author the user is trying to create
      * @return newly created author
      */
+    @Transactional
     public Author createAuthor(Author authorObject) {
-        Author author = authorRepository.findByFirstNameAndLastName(authorObject.getFirstName(), authorObject.getLastName());
-
-        if (author != null) {
+        try {
+            Author newAuthor = authorRepository.saveAndFlush(authorObject);
+            eventPublisher.publishEvent(CatalogChangedEvent.authorSaved(newAuthor));
+            return newAuthor;
+        } catch (DataIntegrityViolationException e) {
             throw new InformationExistException("author with name " + authorObject.getFullName() + " already exists");
-        } else {
-            return authorRepository.save(authorObject);
         }
     }
 
 
     /**
-     * This is a PUT request that checks to see if an author exists before either throwing an InformationNotFoundException, or setting the attributes and saving the newly updated author to the repository
+     * This is a PUT request that checks to see if an author exists before either throwing an InformationNotFoundException, or setting the attributes and saving the newly updated author to the repository.
+     * If the user says which version they're updating and the author has changed since, it throws a PreconditionFailedException. If another request updates the author between loading and saving, the save throws an ObjectOptimisticLockingFailureException instead of overwriting their change
      *
      * @param authorId represents the id of the author the user is trying to update
      * @param authorObject represents the updated version of the author
+     * @param expectedVersion represents the version of the author the user is updating, or null to update whatever version is current
      * @return the newly updated author
      */
-    public Optional<Author> updateAuthor(Long authorId, Author authorObject) {
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.AUTHORS_CACHE, key = "#authorId")
+    public Optional<Author> updateAuthor(Long authorId, Author authorObject, Long expectedVersion) {
         Optional<Author> authorOptional = authorRepository.findById(authorId);
 
         if (authorOptional.isPresent()) {
 
+            checkVersion("author", authorId, authorOptional.get().getVersion(), expectedVersion);
+
             authorOptional.get().setFirstName(authorObject.getFirstName());
             authorOptional.get().setLastName(authorObject.getLastName());
-            authorRepository.save(authorOptional.get());
+
+            try {
+                authorRepository.saveAndFlush(authorOptional.get());
+            } catch (DataIntegrityViolationException e) {
+                throw new InformationExistException("author with name " + authorObject.getFullName() + " already exists");
+            }
+            eventPublisher.publishEvent(CatalogChangedEvent.authorSaved(authorOptional.get()));
             return authorOptional;
 
         } else {
@@ -99,16 +317,20 @@ public class AuthorService {
 
 
     /**
-     * This is a DELETE request that checks to see if an individual author exists before either deleting it, or throwing an InformationNotFoundException
+     * This is a DELETE request that checks to see if an individual author exists before either deleting it along with their books, or throwing an InformationNotFoundException. The author that was loaded is the one that's deleted, so they aren't loaded a second time
      *
      * @param authorId represents the id of the author the user is trying to delete
      * @return the deleted author
      */
+    @Transactional
     public Optional<Author> deleteAuthor(Long authorId) {
-        Optional<Author> authorOptional = authorRepository.findById(authorId);
+        Optional<Author> authorOptional = authorRepository.findWithBookListById(authorId);
 
         if (authorOptional.isPresent()) {
-            authorRepository.deleteById(authorId);
+            authorRepository.delete(authorOptional.get());
+            evict(CacheConfig.AUTHORS_CACHE, authorId);
+            authorOptional.get().getBookList().forEach(book -> evict(CacheConfig.BOOKS_CACHE, book.getId()));
+            eventPublisher.publishEvent(CatalogChangedEvent.authorDeleted(authorId));
             return authorOptional;
         } else {
             throw new InformationNotFoundException("author with id " + authorId + " not found");
@@ -117,80 +339,228 @@ public class AuthorService {
 
 
     /**
-     * This is a GET request that returns a list of all books
+     * This is a GET request that returns one page of books ordered by id, starting after the given cursor
      *
-     * @return all books
+     * @param after represents the id of the last book from the previous page, or null for the first page
+     * @param limit represents the maximum number of books to return
+     * @return a page of books
      */
-    public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<Book> getAllBooks(Long after, int limit) {
+        return bookRepository.findByIdGreaterThan(after == null ? 0L : after, firstPage(limit));
     }
 
 
     /**
-     * This is a GET request that checks to see if an individual book exists and is in the author's book list before either returning it, or throwing an InformationNotFoundException
+     * This is a GET request that returns one page of the books that match the filters, in the order the user asked for, starting after the given cursor. The filtering, sorting and paging all happen in a single query.
+     * Filtering by name has to read every row it's applied to, so it's only allowed together with a filter that can use an index, and throws an InformationInvalidException otherwise
+     *
+     * @param authorId represents the id of the author whose books the user wants, or null for every author
+     * @param isbnPrefix represents the start of the ISBNs the user wants, or null for every ISBN
+     * @param nameContains represents text the books' names have to contain, ignoring case, or null for every name
+     * @param sort represents the column to sort by and optionally the direction, like "name" or "name,desc", or null to sort by id
+     * @param after represents the id of the last book from the previous page, or null for the first page
+     * @param limit represents the maximum number of books to return
+     * @return a page of books
+     */
+    @Transactional(readOnly = true)
+    public List<Book> findBooks(Long authorId, String isbnPrefix, String nameContains, String sort, Long after, int limit) {
+        Sort order = bookSort(sort);
+        return bookRepository.findPage(bookFilters(authorId, isbnPrefix, nameContains, order, after), order, pageSize(limit));
+    }
+
+
+    /**
+     * This is a GET request that does the same as findBooks, but only SELECTs the fields the user asked for, so the columns they don't need (usually the description) are never read, turned into entities or sent
+     *
+     * @param authorId represents the id of the author whose books the user wants, or null for every author
+     * @param isbnPrefix represents the start of the ISBNs the user wants, or null for every ISBN
+     * @param nameContains represents text the books' names have to contain, ignoring case, or null for every name
+     * @param sort represents the column to sort by and optionally the direction, or null to sort by id
+     * @param after represents the id of the last book from the previous page, or null for the first page
+     * @param limit represents the maximum number of books to return
+     * @param fields represents a comma separated list of the fields the user wants, out of BOOK_FIELDS. The id is always sent
+     * @return a page of books, each with only the fields the user asked for
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findBookFields(Long authorId, String isbnPrefix, String nameContains, String sort, Long after, int limit, String fields) {
+        List<String> selected = selectedFields(fields, BOOK_FIELDS, "books");
+        Sort order = bookSort(sort);
+        return bookRepository.findFields(bookFilters(authorId, isbnPrefix, nameContains, order, after), order, pageSize(limit), selected);
+    }
+
+
+    /**
+     * This is a GET request that checks to see if an individual book exists and belongs to the author before either returning it, or throwing an InformationNotFoundException. Both are checked in a single query, so the author's book list is never loaded.
+     * Books are cached by id, so a cached book is only returned if it belongs to the author the user asked for. When the book isn't cached, concurrent calls for it share one load through bookLoads, which is the only part that runs in a transaction, like getAuthorById
      *
      * @param authorId represents the id of the specific author whose book list the user is trying to get a book from
      * @param bookId represents the id of the specific book the user is trying to get
      * @return book by id if it exists
      */
     public Optional<Book> getBookById(Long authorId, Long bookId) {
-        Optional<Book> bookOptional = bookRepository.findById(bookId);
+        Cache bookCache = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        Book cachedBook = bookCache.get(bookId, Book.class);
 
-        Optional<Author> author = authorRepository.findById(authorId);
+        if (cachedBook != null) {
+            if (authorId.equals(cachedBook.getAuthorId())) {
+                return Optional.of(cachedBook);
+            }
+            throw new InformationNotFoundException("book with id " + bookId + " not found");
+        }
 
-         if (bookOptional.isPresent() && author.get().getBookList().contains(bookOptional.get())) {
+        Optional<Book> bookOptional = bookLoads.load(List.of(authorId, bookId), () -> readOnlyTransactionTemplate.execute(status -> bookRepository.findByIdAndAuthorId(bookId, authorId)));
+
+        if (bookOptional.isPresent()) {
+            bookCache.put(bookId, bookOptional.get());
             return bookOptional;
-         } else {
+        } else {
             throw new InformationNotFoundException("book with id " + bookId + " not found");
-         }
+        }
+    }
+
+
+    /**
+     * This is a GET request that returns an individual book with only the fields the user asked for, if it belongs to the author
+     *
+     * @param authorId represents the id of the specific author whose book list the user is trying to get a book from
+     * @param bookId represents the id of the specific book the user is trying to get
+     * @param fields represents a comma separated list of the fields the user wants, out of BOOK_FIELDS. The id is always sent
+     * @return the book's fields if the book exists and belongs to the author
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getBookFieldsById(Long authorId, Long bookId, String fields) {
+        List<String> selected = selectedFields(fields, BOOK_FIELDS, "books");
+        Specification<Book> book = BookSpecifications.hasId(bookId).and(BookSpecifications.hasAuthorId(authorId));
+        return bookRepository.findFields(book, Sort.unsorted(), 1, selected).stream().findFirst();
+    }
+
+
+    /**
+     * This is a GET request that returns the books with the given ids, in the order the ids were asked for. Books already in the books cache are taken from it, and the rest are read in chunks of BATCH_CHUNK_SIZE ids and put in the cache.
+     * Ids that don't belong to a book are sent back as missing instead of failing the whole batch
+     *
+     * @param bookIds represents the ids of the books the user wants, at most MAX_PAGE_SIZE of them
+     * @return the books that were found and the ids that weren't
+     */
+    @Transactional(readOnly = true) // No connection is taken from the pool unless some books weren't in the cache
+    public BatchResult<Book> getBooksByIds(List<Long> bookIds) {
+        return lookUpByIds(bookIds, "books", CacheConfig.BOOKS_CACHE, Book.class, bookRepository::findAllById, Book::getId);
+    }
+
+
+    /**
+     * This is a GET request that checks to see if an individual book exists and belongs to the author before either returning its version, or throwing an InformationNotFoundException. A cached book's version is used if there is one, otherwise only the version column is read
+     *
+     * @param authorId represents the id of the specific author whose book list the user is trying to get a book from
+     * @param bookId represents the id of the specific book the user is trying to get
+     * @return the book's version
+     */
+    @Transactional(readOnly = true)
+    public Long getBookVersion(Long authorId, Long bookId) {
+        Book cachedBook = cacheManager.getCache(CacheConfig.BOOKS_CACHE).get(bookId, Book.class);
+
+        if (cachedBook != null && authorId.equals(cachedBook.getAuthorId())) {
+            return cachedBook.getVersion();
+        }
+        return bookRepository.findVersionByIdAndAuthorId(bookId, authorId)
+                .orElseThrow(() -> new InformationNotFoundException("book with id " + bookId + " not found"));
+    }
+
+
+    /**
+     * This is a GET request that searches every book's name, description and author's name for the words in the query, and returns the best matches first. It's answered from BookSearchIndex, so it never touches the database.
+     * Until the index has been built at startup it throws an InformationUnavailableException, instead of answering as if no book matched
+     *
+     * @param query represents the words to search for
+     * @param limit represents the maximum number of books to return
+     * @return the matching books, best match first
+     */
+    public List<BookSearchResult> searchBooks(String query, int limit) {
+
+        if (!bookSearchIndex.isReady()) {
+            throw new InformationUnavailableException("book search is still starting up, try again shortly");
+        }
+        return bookSearchIndex.search(query, pageSize(limit));
     }
 
 
     /**
-     * This is a POST request that checks to see if the author whose book list the user is trying to create a book in already exists before either throwing an InformationNotFoundException, or moving on to check if the book already exists. From there, it either saves the newly created book to the repository, or throws an InformationExistException
+     * This is a GET request that returns the authors and books whose name starts with what the user has typed so far, in alphabetical order. It's answered from AutocompleteIndex, so it never touches the database.
+     * Until the index has been built at startup it throws an InformationUnavailableException, instead of answering as if nothing matched
+     *
+     * @param prefix represents what the user has typed so far
+     * @param limit represents the maximum number of suggestions to return
+     * @return the matching authors and books
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+
+        if (!autocompleteIndex.isReady()) {
+            throw new InformationUnavailableException("autocomplete is still starting up, try again shortly");
+        }
+        return autocompleteIndex.suggest(prefix, pageSize(limit));
+    }
+
+
+    /**
+     * This is a POST request that checks to see if the author whose book list the user is trying to create a book in already exists before either throwing an InformationNotFoundException, or saving the newly created book to the repository. If the unique constraint on the book's name says it already exists, it throws an InformationExistException
      *
      * @param authorId represents the id of a specific author whose book list the user is trying to create a book in
      * @param bookObject represents the book the user is trying to create
      * @return the newly created book
      */
+    @Transactional // The author's version is bumped in the same transaction as the INSERT
+    @CacheEvict(cacheNames = CacheConfig.AUTHORS_CACHE, key = "#authorId") // The cached author's book list won't have the new book
     public Book createBook(Long authorId, Book bookObject) {
         
-        Optional<Author> author = authorRepository.findById(authorId);
+        Optional<Author> author = bumpVersion(authorId);
        
         if (author.isEmpty()) {
             throw new InformationNotFoundException("author with id " + authorId + " not found");
         }
-        
-        Book book = bookRepository.findByName(bookObject.getName());
-       
-        if (book != null) {
+
+        bookObject.setAuthor(author.get());
+
+        try {
+            Book newBook = bookRepository.saveAndFlush(bookObject);
+            eventPublisher.publishEvent(CatalogChangedEvent.bookSaved(newBook));
+            return newBook;
+        } catch (DataIntegrityViolationException e) {
             throw new InformationExistException("book with name " + bookObject.getName() + " already exists");
         }
-       
-        bookObject.setAuthor(author.get());
-        List<Book> bookList = author.get().getBookList();
-        author.get().addToBookList(bookObject);
-        return bookRepository.save(bookObject);
     }
 
 
     /**
-     * This is a PUT request that checks to see if a book exists before either throwing an InformationNotFoundException, or setting its attributes and saving the newly updated book to the repository
+     * This is a PUT request that checks to see if a book exists before either throwing an InformationNotFoundException, or setting its attributes and saving the newly updated book to the repository. The book stays in its author's book list, and the author's version is bumped because their book list changed.
+     * If the user says which version they're updating and the book has changed since, it throws a PreconditionFailedException. If another request updates the book between loading and saving, the save throws an ObjectOptimisticLockingFailureException instead of overwriting their change
      *
      * @param bookId represents id of the book the user is trying to update
      * @param bookObject represents the updated version of the book
+     * @param expectedVersion represents the version of the book the user is updating, or null to update whatever version is current
      * @return the newly updated book
      */
-    public Optional<Book> updateBook(Long bookId, Book bookObject) {
+    @Transactional
+    public Optional<Book> updateBook(Long bookId, Book bookObject, Long expectedVersion) {
         Optional<Book> bookOptional = bookRepository.findById(bookId);
 
         if (bookOptional.isPresent()) {
 
+            checkVersion("book", bookId, bookOptional.get().getVersion(), expectedVersion);
+            Long authorId = bookOptional.get().getAuthorId();
+            bumpVersion(authorId);
             bookOptional.get().setName(bookObject.getName());
             bookOptional.get().setDescription(bookObject.getDescription());
             bookOptional.get().setIsbn(bookObject.getIsbn());
-            bookOptional.get().setAuthor(bookObject.getAuthor());
-            bookRepository.save(bookOptional.get());
+
+            try {
+                bookRepository.saveAndFlush(bookOptional.get());
+            } catch (DataIntegrityViolationException e) {
+                throw new InformationExistException("book with name " + bookObject.getName() + " already exists");
+            }
+            evict(CacheConfig.BOOKS_CACHE, bookId);
+            evict(CacheConfig.AUTHORS_CACHE, authorId);
+            eventPublisher.publishEvent(CatalogChangedEvent.bookSaved(bookOptional.get()));
             return bookOptional;
 
         } else {
@@ -201,20 +571,453 @@ public class AuthorService {
 
 
     /**
-     * This is a DELETE request that checks to see if an individual book exists before either deleting it, or throwing an InformationNotFoundException
+     * This is a DELETE request that checks to see if an individual book exists before either deleting it and bumping its author's version, or throwing an InformationNotFoundException. The book that was loaded is the one that's deleted, so it isn't loaded a second time
      *
      * @param bookId represents the id of the specific book the user is trying to delete
      * @return the deleted book
      */
+    @Transactional
     public Optional<Book> deleteBook(Long bookId) {
         Optional<Book> bookOptional = bookRepository.findById(bookId);
 
         if (bookOptional.isPresent()) {
-            bookRepository.deleteById(bookId);
+            bumpVersion(bookOptional.get().getAuthorId());
+            bookRepository.delete(bookOptional.get());
+            evict(CacheConfig.BOOKS_CACHE, bookId);
+            evict(CacheConfig.AUTHORS_CACHE, bookOptional.get().getAuthorId());
+            eventPublisher.publishEvent(CatalogChangedEvent.bookDeleted(bookId));
             return bookOptional;
         } else {
             throw new InformationNotFoundException("book with id " + bookId + " not found");
         }
     }
 
+
+    /**
+     * This is a POST request that imports a feed of authors, each with an optional book list. Authors that already exist get the new books added to their book list. Rows are read one at a time and saved in chunks, so the whole feed is never held in memory.
+     * It isn't @Transactional on purpose: each chunk commits in its own transaction, so a long feed doesn't hold one connection and one persistence context for the whole import
+     *
+     * @param authors represents the authors in the feed, in the order they were sent
+     * @return how many authors and books were saved, and the rows that were skipped
+     */
+    public ImportResult importAuthors(Iterator<Author> authors) {
+        return importInChunks(authors, this::saveAuthorChunk);
+    }
+
+
+    /**
+     * This is a POST request that checks to see if an author exists before either throwing an InformationNotFoundException, or importing a feed of books into their book list in chunks
+     *
+     * @param authorId represents the id of the author whose book list the books are imported into
+     * @param books represents the books in the feed, in the order they were sent
+     * @return how many books were saved, and the rows that were skipped
+     */
+    public ImportResult importBooks(Long authorId, Iterator<Book> books) {
+
+        if (!authorRepository.existsById(authorId)) {
+            throw new InformationNotFoundException("author with id " + authorId + " not found");
+        }
+        return importInChunks(books, (chunk, firstRow) -> saveBookChunk(authorId, chunk, firstRow));
+    }
+
+
+    /**
+     * This streams the summary of every author, in id order, to the sink one at a time, so the catalog is never held in memory
+     *
+     * @param sink represents what to do with each author, like writing it to the response
+     */
+    @Transactional(readOnly = true) // The stream reads from an open result set, so the transaction has to stay open until it's finished
+    public void exportAuthors(Consumer<AuthorSummary> sink) {
+        try (Stream<AuthorSummary> authors = authorRepository.streamAllSummaries()) {
+            authors.forEach(sink);
+        }
+    }
+
+
+    /**
+     * This streams every book, in id order, to the sink one at a time. Each book is detached once the sink is done with it, so the persistence context doesn't grow with the catalog
+     *
+     * @param sink represents what to do with each book, like writing it to the response
+     */
+    @Transactional(readOnly = true)
+    public void exportBooks(Consumer<Book> sink) {
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            books.forEach(book -> {
+                sink.accept(book);
+                entityManager.detach(book);
+            });
+        }
+    }
+
+
+    /**
+     * This clamps the page size the user asked for between 1 and MAX_PAGE_SIZE
+     *
+     * @param limit represents the page size the user asked for
+     * @return the page size that will actually be used
+     */
+    public static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+
+    /**
+     * This finds records by id for a batch lookup. Duplicate ids are only looked up once, the cache is checked first, and the ids that weren't cached are read in chunks with one IN query each
+     *
+     * @param ids represents the ids the user asked for, in the order they want the records back
+     * @param records represents what the records are called, for the error message
+     * @param cacheName represents the cache the records are kept in by id
+     * @param type represents the type of the records
+     * @param findAllById represents how to read one chunk of records from the database
+     * @param idOf represents how to get the id of a record
+     * @return the records that were found, in the order of their ids, and the ids that weren't found
+     */
+    private <T> BatchResult<T> lookUpByIds(List<Long> ids, String records, String cacheName, Class<T> type, Function<List<Long>, List<T>> findAllById, Function<T, Long> idOf) {
+        if (ids.size() > MAX_PAGE_SIZE) {
+            throw new InformationInvalidException("at most " + MAX_PAGE_SIZE + " " + records + " can be looked up at once");
+        }
+
+        Cache cache = cacheManager.getCache(cacheName);
+        Map<Long, T> found = new HashMap<>();
+        List<Long> notCached = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            T cached = cache == null ? null : cache.get(id, type);
+
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                notCached.add(id);
+            }
+        }
+
+        for (int start = 0; start < notCached.size(); start += BATCH_CHUNK_SIZE) {
+            for (T record : findAllById.apply(notCached.subList(start, Math.min(start + BATCH_CHUNK_SIZE, notCached.size())))) {
+                found.put(idOf.apply(record), record);
+                if (cache != null) {
+                    cache.put(idOf.apply(record), record);
+                }
+            }
+        }
+
+        List<T> inOrder = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (found.containsKey(id)) {
+                inOrder.add(found.get(id));
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new BatchResult<>(inOrder, missingIds);
+    }
+
+
+    /**
+     * This checks the fields the user asked for with ?fields= against the fields that can be asked for, and puts the id first, since every record is sent with its id
+     *
+     * @param fields represents a comma separated list of field names
+     * @param allowed represents the fields that can be asked for, with id first
+     * @param records represents what the records are called, for the error message
+     * @return the fields to select, without duplicates
+     */
+    private static List<String> selectedFields(String fields, List<String> allowed, String records) {
+        Set<String> selected = new LinkedHashSet<>(List.of("id"));
+
+        for (String field : fields.split(",")) {
+            if (!field.isBlank() && !allowed.contains(field.trim())) {
+                throw new InformationInvalidException("fields for " + records + " can only be " + String.join(", ", allowed));
+            }
+            if (!field.isBlank()) {
+                selected.add(field.trim());
+            }
+        }
+        return new ArrayList<>(selected);
+    }
+
+
+    /**
+     * This checks the sort the user asked for the book list and turns it into the order of the query. Books with the same sort value are ordered by id, so every page starts where the previous one ended
+     *
+     * @param sort represents the column to sort by and optionally the direction, like "name" or "name,desc", or null to sort by id
+     * @return the order of the query
+     */
+    private static Sort bookSort(String sort) {
+        String[] sortParts = (sort == null ? "id" : sort).split(",", 2);
+        String sortField = sortParts[0].trim();
+        String direction = sortParts.length > 1 ? sortParts[1].trim().toLowerCase(Locale.ROOT) : "asc";
+
+        if (!BOOK_SORT_FIELDS.contains(sortField) || !(direction.equals("asc") || direction.equals("desc"))) {
+            throw new InformationInvalidException("books can only be sorted by " + String.join(" or ", new TreeSet<>(BOOK_SORT_FIELDS)) + ", asc or desc");
+        }
+        Sort.Direction order = direction.equals("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return sortField.equals("id") ? Sort.by(order, "id") : Sort.by(order, sortField).and(Sort.by(order, "id"));
+    }
+
+
+    /**
+     * This combines the filters the user sent for the book list into one WHERE clause, along with the cursor. Filtering by name has to read every row it's applied to, so it's only allowed together with a filter that can use an index
+     *
+     * @param authorId represents the id of the author whose books the user wants, or null
+     * @param isbnPrefix represents the start of the ISBNs the user wants, or null
+     * @param nameContains represents text the books' names have to contain, or null
+     * @param sort represents the order of the list, from bookSort
+     * @param after represents the id of the last book from the previous page, or null
+     * @return the filters
+     */
+    private static Specification<Book> bookFilters(Long authorId, String isbnPrefix, String nameContains, Sort sort, Long after) {
+        if (nameContains != null && authorId == null && isbnPrefix == null) {
+            throw new InformationInvalidException("nameContains has to be combined with authorId or isbnPrefix; use /api/books/search to search every book by name");
+        }
+
+        Sort.Order order = sort.iterator().next();
+        return Specification.where(authorId == null ? null : BookSpecifications.hasAuthorId(authorId))
+                .and(isbnPrefix == null ? null : BookSpecifications.isbnStartsWith(isbnPrefix))
+                .and(nameContains == null ? null : BookSpecifications.nameContains(nameContains))
+                .and(after == null ? null : BookSpecifications.after(after, order.getProperty(), order.isDescending()));
+    }
+
+
+    /**
+     * This builds the page request for a keyset query. The offset is always 0 because the cursor does the skipping
+     *
+     * @param limit represents the page size the user asked for
+     * @return the page request ordered by id
+     */
+    private Pageable firstPage(int limit) {
+        return PageRequest.of(0, pageSize(limit), Sort.by("id"));
+    }
+
+
+    /**
+     * This reads the feed into chunks of IMPORT_CHUNK_SIZE rows and saves each chunk in its own transaction. If a chunk collides with a record saved by someone else at the same time, only that chunk is rolled back and reported
+     *
+     * @param rows represents the rows of the feed
+     * @param saveChunk represents how to validate and save one chunk, given its rows and the row number of its first row
+     * @return the totals for the whole feed
+     */
+    private <T> ImportResult importInChunks(Iterator<T> rows, BiFunction<List<T>, Integer, ImportResult> saveChunk) {
+        ImportResult result = new ImportResult();
+        List<T> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        int firstRow = 1;
+        boolean readable = true;
+
+        while (readable && rows.hasNext()) {
+            try {
+                chunk.add(rows.next());
+            } catch (RuntimeException e) {
+                result.addError("row " + (firstRow + chunk.size()) + " could not be read, so the rest of the feed was not imported: " + e.getMessage());
+                readable = false;
+            }
+
+            if (!chunk.isEmpty() && (chunk.size() == IMPORT_CHUNK_SIZE || !readable || !rows.hasNext())) {
+                int chunkFirstRow = firstRow;
+                try {
+                    result.addAll(transactionTemplate.execute(status -> saveChunk.apply(chunk, chunkFirstRow)));
+                } catch (DataIntegrityViolationException e) {
+                    result.addError("rows " + firstRow + "-" + (firstRow + chunk.size() - 1) + " were not imported because they conflict with records saved at the same time");
+                }
+                firstRow += chunk.size();
+                chunk.clear();
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * This validates and saves one chunk of an author feed. Authors are matched by full name, so a feed can add books to an author who already exists
+     *
+     * @param chunk represents the authors in the chunk
+     * @param firstRow represents the row number of the first author in the chunk
+     * @return what the chunk saved and skipped
+     */
+    private ImportResult saveAuthorChunk(List<Author> chunk, int firstRow) {
+        ImportResult chunkResult = new ImportResult();
+        Set<String> takenBookNames = takenBookNames(chunk.stream()
+                .filter(author -> author.getBookList() != null)
+                .flatMap(author -> author.getBookList().stream())
+                .iterator());
+        Map<String, Author> authorsByName = new HashMap<>();
+        List<Author> newAuthors = new ArrayList<>();
+        List<Book> newBooks = new ArrayList<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            Author row = chunk.get(i);
+            int rowNumber = firstRow + i;
+
+            if (isBlank(row.getFirstName()) || isBlank(row.getLastName())) {
+                chunkResult.addError("row " + rowNumber + ": author first and last name are required");
+                continue;
+            }
+
+            Author author = authorsByName.computeIfAbsent(row.getFullName(), fullName -> {
+                Author existingAuthor = authorRepository.findByFirstNameAndLastName(row.getFirstName(), row.getLastName());
+                if (existingAuthor != null) {
+                    entityManager.lock(existingAuthor, LockModeType.OPTIMISTIC_FORCE_INCREMENT); // The author's book list is changing, so their version is bumped when the chunk commits
+                    evictFromSecondLevelCacheAfterTransaction(existingAuthor.getId());
+                    evict(CacheConfig.AUTHORS_CACHE, existingAuthor.getId()); // The cached author's book list won't have the imported books
+                    return existingAuthor;
+                }
+                Author newAuthor = new Author(null, row.getFirstName(), row.getLastName());
+                newAuthors.add(newAuthor);
+                return newAuthor;
+            });
+
+            if (row.getBookList() != null) {
+                for (Book book : row.getBookList()) {
+                    acceptBook(book, author, rowNumber, takenBookNames, newBooks, chunkResult);
+                }
+            }
+        }
+
+        authorRepository.saveAll(newAuthors);
+        bookRepository.saveAll(newBooks);
+        newAuthors.forEach(author -> eventPublisher.publishEvent(CatalogChangedEvent.authorSaved(author)));
+        newBooks.forEach(book -> eventPublisher.publishEvent(CatalogChangedEvent.bookSaved(book)));
+        chunkResult.addImported(newAuthors.size(), newBooks.size());
+        return chunkResult;
+    }
+
+
+    /**
+     * This validates and saves one chunk of a book feed for a single author
+     *
+     * @param authorId represents the id of the author the books belong to
+     * @param chunk represents the books in the chunk
+     * @param firstRow represents the row number of the first book in the chunk
+     * @return what the chunk saved and skipped
+     */
+    private ImportResult saveBookChunk(Long authorId, List<Book> chunk, int firstRow) {
+        ImportResult chunkResult = new ImportResult();
+        Set<String> takenBookNames = takenBookNames(chunk.iterator());
+        Author author = bumpVersion(authorId) // The author's book list is changing, so their version is bumped once per chunk
+                .orElseThrow(() -> new InformationNotFoundException("author with id " + authorId + " not found"));
+        evict(CacheConfig.AUTHORS_CACHE, authorId);
+        List<Book> newBooks = new ArrayList<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            acceptBook(chunk.get(i), author, firstRow + i, takenBookNames, newBooks, chunkResult);
+        }
+
+        bookRepository.saveAll(newBooks);
+        newBooks.forEach(book -> eventPublisher.publishEvent(CatalogChangedEvent.bookSaved(book)));
+        chunkResult.addImported(0, newBooks.size());
+        return chunkResult;
+    }
+
+
+    /**
+     * This checks a book from a feed and either links it to its author and queues it to be saved, or records why it was skipped
+     *
+     * @param book represents the book from the feed
+     * @param author represents the author the book belongs to
+     * @param rowNumber represents the row the book came from
+     * @param takenBookNames represents the book names that are already in use. The book's name is added to it once it's accepted
+     * @param newBooks represents the books queued to be saved
+     * @param chunkResult represents the result the error is recorded in
+     */
+    private static void acceptBook(Book book, Author author, int rowNumber, Set<String> takenBookNames, List<Book> newBooks, ImportResult chunkResult) {
+
+        if (isBlank(book.getName())) {
+            chunkResult.addError("row " + rowNumber + ": book name is required");
+        } else if (!takenBookNames.add(book.getName())) {
+            chunkResult.addError("row " + rowNumber + ": book with name " + book.getName() + " already exists");
+        } else {
+            book.setId(null);
+            book.setAuthor(author);
+            newBooks.add(book);
+        }
+    }
+
+
+    /**
+     * This finds which of the books' names are already saved, with one query for the whole chunk
+     *
+     * @param books represents the books in a chunk
+     * @return the names that are already taken
+     */
+    private Set<String> takenBookNames(Iterator<Book> books) {
+        Set<String> bookNames = new HashSet<>();
+        books.forEachRemaining(book -> {
+            if (!isBlank(book.getName())) {
+                bookNames.add(book.getName());
+            }
+        });
+        return bookNames.isEmpty() ? new HashSet<>() : new HashSet<>(bookRepository.findExistingNames(bookNames));
+    }
+
+
+    /**
+     * This checks that the record the user is updating is still the version they last saw
+     *
+     * @param recordType represents what kind of record it is, for the error message
+     * @param id represents the id of the record
+     * @param currentVersion represents the version of the record that was just loaded
+     * @param expectedVersion represents the version the user is updating, or null if they didn't say
+     */
+    static void checkVersion(String recordType, Long id, Long currentVersion, Long expectedVersion) {
+
+        if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+            throw new PreconditionFailedException(recordType + " with id " + id + " has changed since version " + expectedVersion);
+        }
+    }
+
+
+    /**
+     * This finds an author and bumps their version when the transaction commits, because their book list is changing. If another transaction bumped it first, the commit fails with ObjectOptimisticLockingFailureException
+     *
+     * @param authorId represents the id of the author
+     * @return the author, if they exist
+     */
+    private Optional<Author> bumpVersion(Long authorId) {
+        Optional<Author> author = authorRepository.findWithVersionIncrementById(authorId);
+        author.ifPresent(found -> evictFromSecondLevelCacheAfterTransaction(found.getId()));
+        return author;
+    }
+
+
+    /**
+     * This evicts an author from Hibernate's second-level cache once the current transaction ends. Hibernate doesn't update the cached copy when it forces a version increment, so without this the next update of the author would be checked against the old version and fail as a concurrent update
+     *
+     * @param authorId represents the id of the author
+     */
+    private void evictFromSecondLevelCacheAfterTransaction(Long authorId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                entityManager.getEntityManagerFactory().getCache().evict(Author.class, authorId);
+            }
+        });
+    }
+
+
+    /**
+     * This removes one entry from a cache once the current transaction has committed, for writes whose cache key isn't one of the method's arguments. Removing it any earlier would let a concurrent read put the old record back before the change is visible
+     *
+     * @param cacheName represents the name of the cache
+     * @param key represents the key of the entry to remove
+     */
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+
+        if (cache == null || key == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.evict(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.evict(key);
+            }
+        });
+    }
+
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
 }
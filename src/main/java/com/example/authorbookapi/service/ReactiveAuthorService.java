@@ -0,0 +1,298 @@
+package com.example.authorbookapi.service;
+
+import com.example.authorbookapi.dto.AuthorSummary;
+import com.example.authorbookapi.exception.InformationExistException;
+import com.example.authorbookapi.exception.InformationNotFoundException;
+import com.example.authorbookapi.model.Author;
+import com.example.authorbookapi.model.AuthorRow;
+import com.example.authorbookapi.model.Book;
+import com.example.authorbookapi.model.BookRow;
+import com.example.authorbookapi.repository.ReactiveAuthorRepository;
+import com.example.authorbookapi.repository.ReactiveBookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+
+// This is the reactive profile's version of AuthorService. Every method returns straight away with a Mono or Flux, and the work happens as the database answers, so no thread is held while waiting on it
+@Service
+@Profile("reactive")
+public class ReactiveAuthorService {
+
+    private ReactiveAuthorRepository authorRepository;
+    private ReactiveBookRepository bookRepository;
+    private TransactionalOperator transactionalOperator;
+
+
+    @Autowired
+    public void setAuthorRepository(ReactiveAuthorRepository authorRepository) {
+        this.authorRepository = authorRepository;
+    }
+
+    @Autowired
+    public void setBookRepository(ReactiveBookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @Autowired // This runs a Mono or Flux in an R2DBC transaction
+    public void setTransactionalOperator(TransactionalOperator transactionalOperator) {
+        this.transactionalOperator = transactionalOperator;
+    }
+
+
+    /**
+     * This is a GET request that returns one page of authors ordered by id, starting after the given cursor
+     *
+     * @param after represents the id of the last author from the previous page, or null for the first page
+     * @param limit represents the maximum number of authors to return
+     * @return a page of author summaries
+     */
+    public Flux<AuthorSummary> getAllAuthors(Long after, int limit) {
+        return authorRepository.findPageAfter(after == null ? 0L : after, AuthorService.pageSize(limit)).map(AuthorRow::toSummary);
+    }
+
+
+    /**
+     * This is a GET request that returns one page of authors ordered by id along with their book lists. It takes two queries, one for the page and one for all of its authors' books
+     *
+     * @param after represents the id of the last author from the previous page, or null for the first page
+     * @param limit represents the maximum number of authors to return
+     * @return a page of authors with their books
+     */
+    public Flux<Author> getAllAuthorsWithBooks(Long after, int limit) {
+        return authorRepository.findPageAfter(after == null ? 0L : after, AuthorService.pageSize(limit))
+                .collectList()
+                .flatMapMany(authors -> {
+                    if (authors.isEmpty()) {
+                        return Flux.empty();
+                    }
+                    List<Long> authorIds = authors.stream().map(AuthorRow::getId).collect(Collectors.toList());
+                    return bookRepository.findByAuthorIdIn(authorIds)
+                            .collectMultimap(BookRow::getAuthorId, BookRow::toBook)
+                            .flatMapMany(booksByAuthor -> Flux.fromIterable(authors)
+                                    .map(author -> author.toAuthor(listOf(booksByAuthor.get(author.getId())))));
+                });
+    }
+
+
+    /**
+     * This is a GET request that checks to see if an individual author exists before either returning it with their book list, or failing with an InformationNotFoundException
+     *
+     * @param authorId represents the id of the specific author the user is trying to get
+     * @return author by id if it exists
+     */
+    public Mono<Author> getAuthorById(Long authorId) {
+        return authorRepository.findById(authorId)
+                .switchIfEmpty(Mono.error(() -> new InformationNotFoundException("author with id " + authorId + " not found")))
+                .flatMap(author -> bookRepository.findByAuthorId(authorId).map(BookRow::toBook).collectList().map(author::toAuthor));
+    }
+
+
+    /**
+     * This is a GET request that checks to see if an individual author exists before either returning their version, or failing with an InformationNotFoundException. Only the version column is read
+     *
+     * @param authorId represents the id of the specific author the user is trying to get
+     * @return the author's version
+     */
+    public Mono<Long> getAuthorVersion(Long authorId) {
+        return authorRepository.findVersionById(authorId)
+                .switchIfEmpty(Mono.error(() -> new InformationNotFoundException("author with id " + authorId + " not found")));
+    }
+
+
+    /**
+     * This is a POST request that saves the newly created author, or fails with an InformationExistException if the unique constraint on the author's full name says they already exist
+     *
+     * @param authorObject represents the new author the user is trying to create
+     * @return newly created author
+     */
+    public Mono<Author> createAuthor(Author authorObject) {
+        return authorRepository.nextId()
+                .flatMap(authorId -> authorRepository.save(new AuthorRow(authorId, authorObject.getFirstName(), authorObject.getLastName())))
+                .map(author -> author.toAuthor(null))
+                .onErrorMap(DataIntegrityViolationException.class, e -> new InformationExistException("author with name " + authorObject.getFullName() + " already exists"));
+    }
+
+
+    /**
+     * This is a PUT request that checks to see if an author exists before either failing with an InformationNotFoundException, or setting the attributes and saving the newly updated author.
+     * If the user says which version they're updating and the author has changed since, it fails with a PreconditionFailedException. If another request updates the author between loading and saving, the save fails with an OptimisticLockingFailureException
+     *
+     * @param authorId represents the id of the author the user is trying to update
+     * @param authorObject represents the updated version of the author
+     * @param expectedVersion represents the version of the author the user is updating, or null to update whatever version is current
+     * @return the newly updated author
+     */
+    public Mono<Author> updateAuthor(Long authorId, Author authorObject, Long expectedVersion) {
+        return authorRepository.findById(authorId)
+                .switchIfEmpty(Mono.error(() -> new InformationNotFoundException("author with id " + authorId + " not found")))
+                .flatMap(author -> {
+                    AuthorService.checkVersion("author", authorId, author.getVersion(), expectedVersion);
+                    author.setFirstName(authorObject.getFirstName());
+                    author.setLastName(authorObject.getLastName());
+                    return authorRepository.save(author);
+                })
+                .map(author -> author.toAuthor(null))
+                .onErrorMap(DataIntegrityViolationException.class, e -> new InformationExistException("author with name " + authorObject.getFullName() + " already exists"))
+                .as(transactionalOperator::transactional);
+    }
+
+
+    /**
+     * This is a DELETE request that checks to see if an individual author exists before either deleting it along with their books, or failing with an InformationNotFoundException
+     *
+     * @param authorId represents the id of the author the user is trying to delete
+     * @return the deleted author
+     */
+    public Mono<Author> deleteAuthor(Long authorId) {
+        return getAuthorById(authorId)
+                .flatMap(author -> bookRepository.deleteByAuthorId(authorId)
+                        .then(authorRepository.deleteById(authorId))
+                        .thenReturn(author))
+                .as(transactionalOperator::transactional);
+    }
+
+
+    /**
+     * This is a GET request that returns one page of books ordered by id, starting after the given cursor
+     *
+     * @param after represents the id of the last book from the previous page, or null for the first page
+     * @param limit represents the maximum number of books to return
+     * @return a page of books
+     */
+    public Flux<Book> getAllBooks(Long after, int limit) {
+        return bookRepository.findPageAfter(after == null ? 0L : after, AuthorService.pageSize(limit)).map(BookRow::toBook);
+    }
+
+
+    /**
+     * This is a GET request that checks to see if an individual book exists and belongs to the author before either returning it, or failing with an InformationNotFoundException
+     *
+     * @param authorId represents the id of the specific author whose book list the user is trying to get a book from
+     * @param bookId represents the id of the specific book the user is trying to get
+     * @return book by id if it exists
+     */
+    public Mono<Book> getBookById(Long authorId, Long bookId) {
+        return bookRepository.findByIdAndAuthorId(bookId, authorId)
+                .switchIfEmpty(Mono.error(() -> new InformationNotFoundException("book with id " + bookId + " not found")))
+                .map(BookRow::toBook);
+    }
+
+
+    /**
+     * This is a GET request that checks to see if an individual book exists and belongs to the author before either returning its version, or failing with an InformationNotFoundException
+     *
+     * @param authorId represents the id of the specific author whose book list the user is trying to get a book from
+     * @param bookId represents the id of the specific book the user is trying to get
+     * @return the book's version
+     */
+    public Mono<Long> getBookVersion(Long authorId, Long bookId) {
+        return bookRepository.findVersionByIdAndAuthorId(bookId, authorId)
+                .switchIfEmpty(Mono.error(() -> new InformationNotFoundException("book with id " + bookId + " not found")));
+    }
+
+
+    /**
+     * This is a POST request that bumps the author's version before saving the newly created book in their book list, or fails with an InformationNotFoundException if the author doesn't exist. If the unique constraint on the book's name says it already exists, it fails with an InformationExistException
+     *
+     * @param authorId represents the id of a specific author whose book list the user is trying to create a book in
+     * @param bookObject represents the book the user is trying to create
+     * @return the newly created book
+     */
+    public Mono<Book> createBook(Long authorId, Book bookObject) {
+        return incrementAuthorVersion(authorId)
+                .then(bookRepository.nextId())
+                .flatMap(bookId -> bookRepository.save(new BookRow(bookId, bookObject.getName(), bookObject.getDescription(), bookObject.getIsbn(), authorId)))
+                .map(BookRow::toBook)
+                .onErrorMap(DataIntegrityViolationException.class, e -> new InformationExistException("book with name " + bookObject.getName() + " already exists"))
+                .as(transactionalOperator::transactional);
+    }
+
+
+    /**
+     * This is a PUT request that checks to see if a book exists before either failing with an InformationNotFoundException, or setting its attributes, bumping its author's version and saving the newly updated book.
+     * If the user says which version they're updating and the book has changed since, it fails with a PreconditionFailedException
+     *
+     * @param bookId represents id of the book the user is trying to update
+     * @param bookObject represents the updated version of the book
+     * @param expectedVersion represents the version of the book the user is updating, or null to update whatever version is current
+     * @return the newly updated book
+     */
+    public Mono<Book> updateBook(Long bookId, Book bookObject, Long expectedVersion) {
+        return bookRepository.findById(bookId)
+                .switchIfEmpty(Mono.error(() -> new InformationNotFoundException("book with id " + bookId + " not found")))
+                .flatMap(book -> {
+                    AuthorService.checkVersion("book", bookId, book.getVersion(), expectedVersion);
+                    book.setName(bookObject.getName());
+                    book.setDescription(bookObject.getDescription());
+                    book.setIsbn(bookObject.getIsbn());
+                    return incrementAuthorVersion(book.getAuthorId()).then(bookRepository.save(book));
+                })
+                .map(BookRow::toBook)
+                .onErrorMap(DataIntegrityViolationException.class, e -> new InformationExistException("book with name " + bookObject.getName() + " already exists"))
+                .as(transactionalOperator::transactional);
+    }
+
+
+    /**
+     * This is a DELETE request that checks to see if an individual book exists before either deleting it and bumping its author's version, or failing with an InformationNotFoundException
+     *
+     * @param bookId represents the id of the specific book the user is trying to delete
+     * @return the deleted book
+     */
+    public Mono<Book> deleteBook(Long bookId) {
+        return bookRepository.findById(bookId)
+                .switchIfEmpty(Mono.error(() -> new InformationNotFoundException("book with id " + bookId + " not found")))
+                .flatMap(book -> incrementAuthorVersion(book.getAuthorId())
+                        .then(bookRepository.delete(book))
+                        .thenReturn(book.toBook()))
+                .as(transactionalOperator::transactional);
+    }
+
+
+    /**
+     * This streams the summary of every author in id order. Rows are read from the database only as fast as the response can be written
+     *
+     * @return every author's summary
+     */
+    public Flux<AuthorSummary> exportAuthors() {
+        return authorRepository.streamAll().map(AuthorRow::toSummary);
+    }
+
+
+    /**
+     * This streams every book in id order, with its author's id. Rows are read from the database only as fast as the response can be written
+     *
+     * @return every book
+     */
+    public Flux<Book> exportBooks() {
+        return bookRepository.streamAll().map(BookRow::toBook);
+    }
+
+
+    /**
+     * This bumps an author's version because their book list is changing, or fails with an InformationNotFoundException if the author doesn't exist
+     *
+     * @param authorId represents the id of the author
+     * @return nothing, once the version has been bumped
+     */
+    private Mono<Void> incrementAuthorVersion(Long authorId) {
+        return authorRepository.incrementVersion(authorId)
+                .flatMap(updatedRows -> updatedRows == 0
+                        ? Mono.error(new InformationNotFoundException("author with id " + authorId + " not found"))
+                        : Mono.empty());
+    }
+
+
+    private static List<Book> listOf(Collection<Book> books) {
+        return books == null ? List.of() : List.copyOf(books);
+    }
+
+}
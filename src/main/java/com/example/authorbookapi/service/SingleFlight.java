@@ -0,0 +1,83 @@
+package com.example.authorbookapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+
+/**
+ * This makes concurrent loads of the same key share one load. The first caller for a key (the leader) runs the load, and every caller that asks for the same key while it's running waits for it and gets the same result, or the same exception, instead of running its own query.
+ * Nothing is kept once the load has finished, so a caller that comes after it runs a new load. Keeping results is the caches' job; this only stops a burst of cache misses for one popular record from all reaching the database at once.
+ * Every call is counted under author.service.loads, tagged with the flight's name and whether it ran the load or shared another call's
+ *
+ * @param <K> represents the type of the keys
+ * @param <V> represents the type of the results
+ */
+public class SingleFlight<K, V> {
+
+    // This is the name of the counter recorded for every call, e.g. author.service.loads{flight="author",outcome="coalesced"}
+    public static final String METRIC_NAME = "author.service.loads";
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter loaded;
+    private final Counter coalesced;
+
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.loaded = Counter.builder(METRIC_NAME).tag("flight", name).tag("outcome", "loaded")
+                .description("calls that ran the load themselves").register(meterRegistry);
+        this.coalesced = Counter.builder(METRIC_NAME).tag("flight", name).tag("outcome", "coalesced")
+                .description("calls that shared the result of a load already in flight").register(meterRegistry);
+    }
+
+
+    /**
+     * This returns the result of the load for the key, running it only if no load for the same key is already in flight
+     *
+     * @param key represents what's being loaded
+     * @param load represents how to load it, which is only run by the leader
+     * @return the result of the load, which is shared by every caller that asked for the key while it was running
+     */
+    public V load(K key, Supplier<V> load) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> leaders = inFlight.putIfAbsent(key, mine);
+
+        if (leaders != null) {
+            coalesced.increment();
+            return join(leaders);
+        }
+
+        loaded.increment();
+        try {
+            V result = load.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+
+    // This waits for the leader's load and throws its exception as it was thrown, instead of wrapped in a CompletionException
+    private static <V> V join(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+}
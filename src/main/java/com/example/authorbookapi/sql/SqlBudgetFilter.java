@@ -0,0 +1,46 @@
+package com.example.authorbookapi.sql;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+
+/**
+ * This counts the SQL statements each HTTP request sends, and how long the database took to run them, and logs every request that goes over the statement or time budget.
+ * A request that sends far more statements than it should usually means an N+1 query: one statement per row, like loading each author's books separately.
+ * Statements sent on other threads, like the ones that write the NDJSON exports, aren't counted
+ */
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    private final int statementBudget;
+    private final long millisBudget;
+
+
+    /**
+     * @param statementBudget represents how many statements a request can send before it's logged
+     * @param millisBudget represents how long the database can spend on a request's statements before it's logged
+     */
+    public SqlBudgetFilter(int statementBudget, long millisBudget) {
+        this.statementBudget = statementBudget;
+        this.millisBudget = millisBudget;
+    }
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatistics.stop();
+
+            if (statistics.getStatements() > statementBudget || statistics.getElapsedMillis() > millisBudget) {
+                SqlBudgetListener.log.warn("{} {} sent {}, over the budget of {} statements or {} ms", request.getMethod(), request.getRequestURI(), statistics, statementBudget, millisBudget);
+            }
+        }
+    }
+
+}
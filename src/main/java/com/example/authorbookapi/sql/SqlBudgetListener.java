@@ -0,0 +1,46 @@
+package com.example.authorbookapi.sql;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+
+
+/**
+ * This is told about every statement the DataSource runs. It adds the statement to the current thread's SqlStatistics, and logs the SQL of any statement slower than the slow query threshold
+ */
+public class SqlBudgetListener implements QueryExecutionListener {
+
+    // This logger is written to on its own background thread (see logback-spring.xml), so logging never slows down a request
+    static final Logger log = LoggerFactory.getLogger("com.example.authorbookapi.sql");
+
+    private final long slowQueryMillis;
+
+
+    /**
+     * @param slowQueryMillis represents how long a statement can take before it's logged as slow
+     */
+    public SqlBudgetListener(long slowQueryMillis) {
+        this.slowQueryMillis = slowQueryMillis;
+    }
+
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        SqlStatistics.record(execInfo.getElapsedTime());
+
+        if (execInfo.getElapsedTime() > slowQueryMillis) {
+            log.warn("slow SQL statement took {} ms (threshold {} ms): {}", execInfo.getElapsedTime(), slowQueryMillis,
+                    queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; ")));
+        }
+    }
+
+}
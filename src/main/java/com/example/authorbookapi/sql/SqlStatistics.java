@@ -0,0 +1,88 @@
+package com.example.authorbookapi.sql;
+
+
+/**
+ * This counts the SQL statements sent to the database on the current thread, and how long the database took to run them, while something is recording.
+ * SqlBudgetFilter records each HTTP request this way, and tests record a single service call with during() to check how many statements it sends
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long elapsedMillis;
+
+    private SqlStatistics() {
+    }
+
+
+    /**
+     * This starts recording the statements sent on the current thread, replacing anything that was being recorded
+     *
+     * @return the statistics, which keep counting until stop() is called
+     */
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+
+    /**
+     * This stops recording the statements sent on the current thread
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+
+    /**
+     * This records the statements a call sends on the current thread. If something was already recording, like SqlBudgetFilter, the call's statements are added to that too
+     *
+     * @param call represents the call to record
+     * @return the statements the call sent
+     */
+    public static SqlStatistics during(Runnable call) {
+        SqlStatistics outer = CURRENT.get();
+        SqlStatistics statistics = start();
+        try {
+            call.run();
+            return statistics;
+        } finally {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                outer.statements += statistics.statements;
+                outer.elapsedMillis += statistics.elapsedMillis;
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+
+    // This is called by SqlBudgetListener after every statement (or batch of statements) the database runs
+    static void record(long elapsedMillis) {
+        SqlStatistics statistics = CURRENT.get();
+
+        if (statistics != null) {
+            statistics.statements++;
+            statistics.elapsedMillis += elapsedMillis;
+        }
+    }
+
+
+    // A JDBC batch counts as one statement, since it's sent to the database in one round trip
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return statements + " SQL statements in " + elapsedMillis + " ms";
+    }
+
+}
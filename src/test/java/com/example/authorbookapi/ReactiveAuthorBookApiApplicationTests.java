@@ -0,0 +1,32 @@
+package com.example.authorbookapi;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+
+// This starts the app with the reactive profile, on its own in-memory database so it doesn't share rows with the other test contexts
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles({"dev", "reactive"})
+class ReactiveAuthorBookApiApplicationTests {
+
+    @Autowired
+    private ReactiveWebServerApplicationContext context;
+
+    @Test
+    void contextLoads() {
+    }
+
+    @Test
+    void servesFromNetty() {
+        assertInstanceOf(NettyWebServer.class, context.getWebServer());
+    }
+
+}
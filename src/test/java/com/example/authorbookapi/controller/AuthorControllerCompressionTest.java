@@ -0,0 +1,56 @@
+package com.example.authorbookapi.controller;
+
+import com.example.authorbookapi.model.Author;
+import com.example.authorbookapi.model.Book;
+import com.example.authorbookapi.repository.AuthorRepository;
+import com.example.authorbookapi.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+// This starts the real Tomcat server, since MockMvc doesn't compress responses, on its own in-memory database
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.datasource.url=jdbc:h2:mem:compressiontest")
+public class AuthorControllerCompressionTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+
+    /**
+     * This test says that when an author with a long book list is read with Accept-Encoding: gzip, then to send it gzipped, even though the response has a strong ETag.
+     * Save an author with 20 books, whose JSON is well over the 2KB minimum, then GET the author and expect the response status to be ok, the ETag to be the author's version and the Content-Encoding to be gzip
+     *
+     * @throws Exception if the request fails
+     */
+    @Test
+    public void getAuthorRecord_largeETaggedResponseIsGzipped() throws Exception {
+
+        Author author = authorRepository.save(new Author(null, "Compressed", "Author"));
+        for (int i = 0; i < 20; i++) {
+            bookRepository.save(new Book(null, "Compressed Book " + i, "A description that is long enough to make twenty of them add up to well over two kilobytes of JSON", "ISBN " + i, author));
+        }
+
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/authors/" + author.getId() + "/"))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue(HttpHeaders.ETAG)).hasValue("\"" + authorRepository.findVersionById(author.getId()).get() + "\"");
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+    }
+
+}
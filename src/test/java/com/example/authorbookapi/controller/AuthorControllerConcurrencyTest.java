@@ -0,0 +1,209 @@
+package com.example.authorbookapi.controller;
+
+import com.example.authorbookapi.dto.AuthorSummary;
+import com.example.authorbookapi.model.Author;
+import com.example.authorbookapi.model.Book;
+import com.example.authorbookapi.service.AuthorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+
+@WebMvcTest(AuthorController.class)
+public class AuthorControllerConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_ENDPOINT = 200;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AuthorService authorService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+
+    /**
+     * This makes every mocked service method build its answer from the id it was called with, so each response can only be correct if it was built from its own request
+     */
+    @BeforeEach
+    public void setUp() {
+        when(authorService.getAllAuthors(anyLong(), anyInt())).thenAnswer(call -> List.of(summary(call.<Long>getArgument(0) + 1)));
+        when(authorService.getAuthorById(anyLong())).thenAnswer(call -> Optional.of(author(call.getArgument(0))));
+        when(authorService.createAuthor(Mockito.any(Author.class))).thenAnswer(call -> author(idOf(call.<Author>getArgument(0).getFirstName())));
+        when(authorService.updateAuthor(anyLong(), Mockito.any(Author.class), Mockito.any())).thenAnswer(call -> Optional.of(author(call.getArgument(0))));
+        when(authorService.deleteAuthor(anyLong())).thenAnswer(call -> Optional.of(author(call.getArgument(0))));
+        when(authorService.getAllBooks(anyLong(), anyInt())).thenAnswer(call -> List.of(book(call.<Long>getArgument(0) + 1)));
+        when(authorService.getBookById(anyLong(), anyLong())).thenAnswer(call -> Optional.of(book(call.getArgument(1))));
+        when(authorService.createBook(anyLong(), Mockito.any(Book.class))).thenAnswer(call -> book(idOf(call.<Book>getArgument(1).getName())));
+        when(authorService.updateBook(anyLong(), Mockito.any(Book.class), Mockito.any())).thenAnswer(call -> Optional.of(book(call.getArgument(0))));
+        when(authorService.deleteBook(anyLong())).thenAnswer(call -> Optional.of(book(call.getArgument(0))));
+    }
+
+
+    /**
+     * This test fires requests at all ten endpoints from many threads at once, each with its own id, and checks that every response only carries the message, data and cursor that belong to that request
+     *
+     * @throws Exception if any response leaked data from another request
+     */
+    @Test
+    public void concurrentRequests_neverLeakAcrossRequests() throws Exception {
+        List<Callable<Void>> calls = new ArrayList<>();
+
+        for (long id = 1; id <= REQUESTS_PER_ENDPOINT; id++) {
+            long requestId = id;
+            calls.add(() -> getAllAuthors(requestId));
+            calls.add(() -> getAuthor(requestId));
+            calls.add(() -> createAuthor(requestId));
+            calls.add(() -> updateAuthor(requestId));
+            calls.add(() -> deleteAuthor(requestId));
+            calls.add(() -> getAllBooks(requestId));
+            calls.add(() -> getBook(requestId));
+            calls.add(() -> createBook(requestId));
+            calls.add(() -> updateBook(requestId));
+            calls.add(() -> deleteBook(requestId));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<Void> result : executor.invokeAll(calls)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+
+    private Void getAllAuthors(long id) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/authors/").param("after", String.valueOf(id)).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("success"))
+                .andExpect(jsonPath("$.data[0].id").value(id + 1))
+                .andExpect(jsonPath("$.cursor").value(id + 1))
+                .andExpect(jsonPath("$.errors").doesNotExist());
+        return null;
+    }
+
+    private Void getAuthor(long id) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/authors/{id}/", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("success"))
+                .andExpect(jsonPath("$.data.firstName").value("First " + id))
+                .andExpect(jsonPath("$.cursor").doesNotExist());
+        return null;
+    }
+
+    private Void createAuthor(long id) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/authors/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(author(id))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.id").value(id))
+                .andExpect(jsonPath("$.cursor").doesNotExist());
+        return null;
+    }
+
+    private Void updateAuthor(long id) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/authors/{id}/", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(author(id))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("author with id " + id + " has been successfully updated"))
+                .andExpect(jsonPath("$.data.lastName").value("Last " + id));
+        return null;
+    }
+
+    private Void deleteAuthor(long id) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/authors/{id}/", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("author with id " + id + " has been successfully deleted"))
+                .andExpect(jsonPath("$.data.id").value(id));
+        return null;
+    }
+
+    private Void getAllBooks(long id) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/authors/books/").param("after", String.valueOf(id)).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].name").value("Name " + (id + 1)))
+                .andExpect(jsonPath("$.cursor").value(id + 1));
+        return null;
+    }
+
+    private Void getBook(long id) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/authors/{authorId}/books/{bookId}/", id, id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.name").value("Name " + id))
+                .andExpect(jsonPath("$.cursor").doesNotExist());
+        return null;
+    }
+
+    private Void createBook(long id) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/authors/{authorId}/books/", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(book(id))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.id").value(id))
+                .andExpect(jsonPath("$.data.isbn").value("ISBN " + id));
+        return null;
+    }
+
+    private Void updateBook(long id) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/authors/{authorId}/books/{bookId}/", id, id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(book(id))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("book with id " + id + " has been successfully updated"))
+                .andExpect(jsonPath("$.data.description").value("Description " + id));
+        return null;
+    }
+
+    private Void deleteBook(long id) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/authors/{authorId}/books/{bookId}/", id, id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("book with id " + id + " has been successfully deleted"))
+                .andExpect(jsonPath("$.data.id").value(id));
+        return null;
+    }
+
+
+    private static Author author(long id) {
+        return new Author(id, "First " + id, "Last " + id);
+    }
+
+    private static AuthorSummary summary(long id) {
+        return new AuthorSummary(id, "First " + id, "Last " + id);
+    }
+
+    private static Book book(long id) {
+        return new Book(id, "Name " + id, "Description " + id, "ISBN " + id, null);
+    }
+
+    private static long idOf(String label) {
+        return Long.parseLong(label.substring(label.lastIndexOf(' ') + 1));
+    }
+
+}
@@ -1,5 +1,14 @@
 package com.example.authorbookapi.controller;
 
+import com.example.authorbookapi.dto.AuthorSummary;
+import com.example.authorbookapi.dto.BatchResult;
+import com.example.authorbookapi.dto.BookDocument;
+import com.example.authorbookapi.dto.BookSearchResult;
+import com.example.authorbookapi.dto.ImportResult;
+import com.example.authorbookapi.dto.Suggestion;
+import com.example.authorbookapi.exception.InformationInvalidException;
+import com.example.authorbookapi.exception.InformationUnavailableException;
+import com.example.authorbookapi.exception.PreconditionFailedException;
 import com.example.authorbookapi.model.Author;
 import com.example.authorbookapi.model.Book;
 import com.example.authorbookapi.service.AuthorService;
@@ -10,17 +19,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import java.util.List;
+import java.util.Map;
 import java.util.Arrays;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.Optional;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -61,9 +77,9 @@ public class AuthorControllerTest {
      */
     @Test
     public void getAllAuthorRecords_success() throws Exception {
-        List<Author> authors = new ArrayList<>(Arrays.asList(AUTHOR_1, AUTHOR_2, AUTHOR_3));
+        List<AuthorSummary> authors = new ArrayList<>(Arrays.asList(summaryOf(AUTHOR_1), summaryOf(AUTHOR_2), summaryOf(AUTHOR_3)));
 
-        when(authorService.getAllAuthors()).thenReturn(authors);
+        when(authorService.getAllAuthors(null, 50)).thenReturn(authors);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/authors/")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -75,6 +91,29 @@ public class AuthorControllerTest {
     }
 
 
+    /**
+     * This test says that when we call authorService.getAllAuthors() with a cursor and a limit, then to return a full page of authors.
+     * Perform a GET request to the endpoint ("/api/authors/?after=0&limit=3"). Expect the response status to be ok, the 'data' key to have a size of 3, and the 'cursor' key to be the id of the last author in the page.
+     *
+     * @throws Exception if list of authors not found
+     */
+    @Test
+    public void getAllAuthorRecords_fullPageReturnsCursor() throws Exception {
+        List<AuthorSummary> authors = new ArrayList<>(Arrays.asList(summaryOf(AUTHOR_1), summaryOf(AUTHOR_2), summaryOf(AUTHOR_3)));
+
+        when(authorService.getAllAuthors(0L, 3)).thenReturn(authors);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/authors/")
+                .param("after", "0")
+                .param("limit", "3")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(3)))
+                .andExpect(jsonPath("$.cursor").value(AUTHOR_3.getId()))
+                .andDo(print());
+    }
+
+
     /**
      * This test says that when we call authorService.getAuthorById(), then to return the author if it exists.
      * Perform a GET request to the endpoint and uri variable ("/api/authors/{id}/", "1"), then set the content type you're expecting, which is MediaType.APPLICATION_JSON. Expect the response status to be ok. Expect the jsonPath of the attributes in the payload to be equal to the value of the get method for that attribute. Expect the jsonPath of the 'message' key of the payload to have a value of 'success'. Then print the message.
@@ -97,6 +136,30 @@ public class AuthorControllerTest {
     }
 
 
+    /**
+     * This test says that when the user sends the author's current version in If-None-Match, then to send NOT MODIFIED with the ETag and no body, without loading the author.
+     * Perform a GET request with the If-None-Match header and expect the response status to be not modified, the ETag header to be the version in quotes, the Vary header to be Accept, and the body to be empty. Then check that authorService.getAuthorById() was never called.
+     *
+     * @throws Exception if author not found
+     */
+    @Test
+    public void getAuthorRecord_notModifiedWhenETagMatches() throws Exception {
+
+        when(authorService.getAuthorVersion(AUTHOR_1.getId())).thenReturn(3L);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/authors/{id}/", "1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(content().string(""))
+                .andDo(print());
+
+        verify(authorService, never()).getAuthorById(anyLong());
+    }
+
+
     /**
      *
      * This test says that when we call authorService.createAuthor(), create a mock of any author, then return the author.
@@ -136,7 +199,7 @@ public class AuthorControllerTest {
     @Test
     public void updateAuthorRecord_recordNotFound() throws Exception {
 
-        when(authorService.updateAuthor(anyLong(), Mockito.any(Author.class))).thenReturn(Optional.empty());
+        when(authorService.updateAuthor(anyLong(), Mockito.any(Author.class), Mockito.any())).thenReturn(Optional.empty());
 
         MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders.delete("/api/authors/{id}/", 1L)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -164,7 +227,7 @@ public class AuthorControllerTest {
         Author author = new Author(authorId, "Original First Name", "Original Last Name");
         Author updatedAuthor = new Author(authorId, "Updated First Name", "Updated Last Name");
 
-        when(authorService.updateAuthor(anyLong(), Mockito.any(Author.class))).thenReturn(Optional.of(updatedAuthor));
+        when(authorService.updateAuthor(anyLong(), Mockito.any(Author.class), Mockito.any())).thenReturn(Optional.of(updatedAuthor));
 
         MockHttpServletRequestBuilder mockRequest = MockMvcRequestBuilders.put("/api/authors/{id}/", 1L)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -182,6 +245,46 @@ public class AuthorControllerTest {
     }
 
 
+    /**
+     * This test says that when the user sends an ETag in If-Match, then to pass its version to authorService.updateAuthor(), and that if the author has changed since, to send PRECONDITION FAILED.
+     * Perform a PUT request with the If-Match header and expect the response status to be precondition failed.
+     *
+     * @throws Exception if author not found
+     */
+    @Test
+    public void updateAuthorRecord_preconditionFailedWhenETagIsStale() throws Exception {
+
+        when(authorService.updateAuthor(eq(1L), Mockito.any(Author.class), eq(3L))).thenThrow(new PreconditionFailedException("author with id 1 has changed since version 3"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/authors/{id}/", 1L)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(this.objectMapper.writeValueAsString(AUTHOR_1)))
+                .andExpect(status().isPreconditionFailed())
+                .andDo(print());
+    }
+
+
+    /**
+     * This test says that when another request changes the author while authorService.updateAuthor() is saving it, then to send CONFLICT instead of overwriting their change.
+     * Perform a PUT request and expect the response status to be conflict. Expect the jsonPath of the 'message' key of the payload to tell the user to retry. Then print the message.
+     *
+     * @throws Exception if author not found
+     */
+    @Test
+    public void updateAuthorRecord_conflictWhenUpdatedConcurrently() throws Exception {
+
+        when(authorService.updateAuthor(anyLong(), Mockito.any(Author.class), Mockito.any())).thenThrow(new ObjectOptimisticLockingFailureException(Author.class, 1L));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/authors/{id}/", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(this.objectMapper.writeValueAsString(AUTHOR_1)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("the record was changed by another request at the same time, fetch it again and retry"))
+                .andDo(print());
+    }
+
+
     /**
      * This test says that when we call authorService.deleteAuthor() in instances where the author is not found, then return an empty optional.
      * Create a mock request and set it equal to calling a DELETE request to the endpoint and uri variable ("/api/authors/{id}/", "1"). Set the content type you're expecting, which is 'MediaType.APPLICATION_JSON', and accept it.
@@ -243,7 +346,7 @@ public class AuthorControllerTest {
 
         List<Book> books = new ArrayList<>(Arrays.asList(BOOK_1, BOOK_2, BOOK_3));
 
-        when(authorService.getAllBooks()).thenReturn(books);
+        when(authorService.getAllBooks(null, 50)).thenReturn(books);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/authors/books/")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -254,6 +357,117 @@ public class AuthorControllerTest {
     }
 
 
+    /**
+     * This test says that when we send ids to the book batch endpoint ("/api/books/?ids=2,9,1"), then to send the books authorService.getBooksByIds() found in the order they were asked for, along with the ids it couldn't find.
+     * Expect the response status to be ok, the 'records' to be in the order of the ids, and 'missingIds' to hold the id that wasn't found. Then print the message.
+     *
+     * @throws Exception if the request fails
+     */
+    @Test
+    public void getBookRecordsByIds_success() throws Exception {
+
+        when(authorService.getBooksByIds(List.of(2L, 9L, 1L))).thenReturn(new BatchResult<>(List.of(BOOK_2, BOOK_1), List.of(9L)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/")
+                .param("ids", "2,9,1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.records[0].id").value(BOOK_2.getId()))
+                .andExpect(jsonPath("$.data.records[1].id").value(BOOK_1.getId()))
+                .andExpect(jsonPath("$.data.missingIds[0]").value(9))
+                .andDo(print());
+    }
+
+
+    /**
+     * This test says that when the caller asks for Smile with the Accept header, then to send the same envelope as Smile instead of JSON.
+     * Perform a GET request to the endpoint ("/api/authors/books/") accepting application/x-jackson-smile. Expect the response status to be ok, the content type to be Smile, and the body read back with a Smile ObjectMapper to have the 'message' key and the books.
+     *
+     * @throws Exception if the response isn't Smile
+     */
+    @Test
+    public void getAllBookRecords_asSmile() throws Exception {
+
+        when(authorService.getAllBooks(null, 50)).thenReturn(List.of(BOOK_1, BOOK_2));
+
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.get("/api/authors/books/")
+                .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Map<?, ?> envelope = new ObjectMapper(new SmileFactory()).readValue(body, Map.class);
+        assertThat(envelope.get("message")).isEqualTo("success");
+        assertThat(((List<?>) envelope.get("data")).size()).isEqualTo(2);
+    }
+
+
+    /**
+     * This test says that when we send filters or a sort to the book list, then to hand them to authorService.findBooks() instead of listing every book.
+     * Perform a GET request to the endpoint ("/api/authors/books/?authorId=2&nameContains=name&sort=name,desc"). Expect the response status to be ok and the 'data' key to have the books the service found, in its order. Then print the message.
+     *
+     * @throws Exception if the request fails
+     */
+    @Test
+    public void getFilteredBookRecords_success() throws Exception {
+
+        when(authorService.findBooks(2L, null, "name", "name,desc", null, 50)).thenReturn(List.of(BOOK_3, BOOK_2));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/authors/books/")
+                .param("authorId", "2")
+                .param("nameContains", "name")
+                .param("sort", "name,desc")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)))
+                .andExpect(jsonPath("$.data[0].id").value(BOOK_3.getId()))
+                .andDo(print());
+    }
+
+
+    /**
+     * This test says that when we send ?fields= to the book list, then to hand it to authorService.findBookFields() and send only those fields.
+     * Perform a GET request to the endpoint ("/api/authors/books/?fields=name"). Expect the response status to be ok, each book to have only its id and name, and the 'cursor' key to be the id of the last book in the full page. Then print the message.
+     *
+     * @throws Exception if the request fails
+     */
+    @Test
+    public void getBookRecordFields_success() throws Exception {
+        List<Map<String, Object>> books = List.of(Map.of("id", BOOK_1.getId(), "name", BOOK_1.getName()), Map.of("id", BOOK_2.getId(), "name", BOOK_2.getName()));
+
+        when(authorService.findBookFields(null, null, null, null, null, 2, "name")).thenReturn(books);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/authors/books/")
+                .param("fields", "name")
+                .param("limit", "2")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].name").value(BOOK_1.getName()))
+                .andExpect(jsonPath("$.data[0].description").doesNotExist())
+                .andExpect(jsonPath("$.cursor").value(BOOK_2.getId()))
+                .andDo(print());
+    }
+
+
+    /**
+     * This test says that when authorService.findBooks() refuses the filters, then to send BAD REQUEST with the reason in the 'message' key.
+     *
+     * @throws Exception if the request fails
+     */
+    @Test
+    public void getFilteredBookRecords_invalidFilters() throws Exception {
+
+        when(authorService.findBooks(null, null, "name", null, null, 50)).thenThrow(new InformationInvalidException("nameContains has to be combined with authorId or isbnPrefix"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/authors/books/")
+                .param("nameContains", "name")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("nameContains has to be combined with authorId or isbnPrefix"))
+                .andDo(print());
+    }
+
+
     @Test
     public void getBookRecord_success() throws Exception {
         // Mock the behavior of authorService to return the sample book
@@ -264,4 +478,130 @@ public class AuthorControllerTest {
                 .andDo(print());
     }
 
+
+    /**
+     * This test says that when we call authorService.searchBooks(), then to return the matching books, best match first.
+     * Perform a GET request to the endpoint ("/api/books/search?q=name"). Expect the response status to be ok, the 'data' key to have the books in the order they were ranked, with their author's name and score. Then print the message.
+     *
+     * @throws Exception if no books match
+     */
+    @Test
+    public void searchBookRecords_success() throws Exception {
+        List<BookSearchResult> results = List.of(resultOf(BOOK_2, 2.5), resultOf(BOOK_1, 1.0));
+
+        when(authorService.searchBooks("name", 20)).thenReturn(results);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/search")
+                .param("q", "name")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)))
+                .andExpect(jsonPath("$.data[0].id").value(BOOK_2.getId()))
+                .andExpect(jsonPath("$.data[0].authorName").value("First Name 2 Last Name 2"))
+                .andExpect(jsonPath("$.data[0].score").value(2.5))
+                .andDo(print());
+    }
+
+
+    /**
+     * This test says that when no books match the search, then to send NOT FOUND.
+     *
+     * @throws Exception if the request fails
+     */
+    @Test
+    public void searchBookRecords_noMatches() throws Exception {
+
+        when(authorService.searchBooks("nothing", 20)).thenReturn(List.of());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/search")
+                .param("q", "nothing")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("cannot find any books matching nothing"))
+                .andDo(print());
+    }
+
+
+    /**
+     * This test says that when the search index is still being built at startup, then to send SERVICE UNAVAILABLE with a Retry-After header instead of an empty result.
+     *
+     * @throws Exception if the request fails
+     */
+    @Test
+    public void searchBookRecords_unavailableWhileIndexIsBuilding() throws Exception {
+
+        when(authorService.searchBooks("name", 20)).thenThrow(new InformationUnavailableException("book search is still starting up, try again shortly"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/books/search")
+                .param("q", "name")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.message").value("book search is still starting up, try again shortly"))
+                .andDo(print());
+    }
+
+
+    /**
+     * This test says that when we call authorService.suggest(), then to return the authors and books whose names start with what the user typed.
+     * Perform a GET request to the endpoint ("/api/autocomplete?q=na"). Expect the response status to be ok, and the 'data' key to have each suggestion's type, id and name. Then print the message.
+     *
+     * @throws Exception if the request fails
+     */
+    @Test
+    public void autocomplete_success() throws Exception {
+        List<Suggestion> suggestions = List.of(Suggestion.ofAuthor(summaryOf(AUTHOR_1)), new Suggestion(Suggestion.Type.BOOK, BOOK_2.getId(), AUTHOR_2.getId(), BOOK_2.getName()));
+
+        when(authorService.suggest("na", 10)).thenReturn(suggestions);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/autocomplete")
+                .param("q", "na")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)))
+                .andExpect(jsonPath("$.data[0].type").value("AUTHOR"))
+                .andExpect(jsonPath("$.data[0].name").value("First Name 1 Last Name 1"))
+                .andExpect(jsonPath("$.data[1].type").value("BOOK"))
+                .andExpect(jsonPath("$.data[1].authorId").value(AUTHOR_2.getId()))
+                .andDo(print());
+    }
+
+
+    /**
+     * This test says that when we POST an NDJSON feed to the import endpoint ("/api/authors/import/"), each line is handed to authorService.importAuthors() as one author.
+     * Expect the response status to be created, the 'data' key to have the counts from the import, and the 'message' key to have a value of 'success'. Then print the message.
+     *
+     * @throws Exception if the feed can't be read
+     */
+    @Test
+    public void importAuthorRecords_readsNdjsonFeed() throws Exception {
+
+        when(authorService.importAuthors(Mockito.any())).thenAnswer(call -> {
+            Iterator<Author> authors = call.getArgument(0);
+            ImportResult result = new ImportResult();
+            authors.forEachRemaining(author -> result.addImported(1, 0));
+            return result;
+        });
+
+        String feed = this.objectMapper.writeValueAsString(AUTHOR_1) + "\n" + this.objectMapper.writeValueAsString(AUTHOR_2) + "\n";
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/authors/import/")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(feed))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.authorsImported").value(2))
+                .andExpect(jsonPath("$.message").value("success"))
+                .andDo(print());
+    }
+
+
+    private static BookSearchResult resultOf(Book book, double score) {
+        Author author = book.getAuthor();
+        return new BookSearchResult(new BookDocument(book.getId(), author.getId(), book.getName(), book.getDescription(), book.getIsbn(), author.getFirstName(), author.getLastName()), score);
+    }
+
+    private static AuthorSummary summaryOf(Author author) {
+        return new AuthorSummary(author.getId(), author.getFirstName(), author.getLastName());
+    }
+
 }
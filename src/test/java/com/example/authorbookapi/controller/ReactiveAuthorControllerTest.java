@@ -0,0 +1,143 @@
+package com.example.authorbookapi.controller;
+
+import com.example.authorbookapi.dto.AuthorSummary;
+import com.example.authorbookapi.exception.PreconditionFailedException;
+import com.example.authorbookapi.model.Author;
+import com.example.authorbookapi.service.ReactiveAuthorService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+@WebFluxTest(ReactiveAuthorController.class)
+@ActiveProfiles({"dev", "reactive"})
+public class ReactiveAuthorControllerTest {
+
+    // using Spring's @Autowired annotation to inject an instance of WebTestClient into this class
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReactiveAuthorService authorService;
+
+
+    Author AUTHOR_1 = new Author(1L, "First Name 1", "Last Name 1");
+    Author AUTHOR_2 = new Author(2L, "First Name 2", "Last Name 2");
+    Author AUTHOR_3 = new Author(3L, "First Name 3", "Last Name 3");
+
+
+    /**
+     * This test says that when we call authorService.getAllAuthors() with a cursor and a limit, then to return a full page of authors.
+     * Perform a GET request to the endpoint ("/api/authors/?after=0&limit=3"). Expect the response status to be ok, the 'data' key to have a size of 3, and the 'cursor' key to be the id of the last author in the page, the same as the servlet controller sends.
+     */
+    @Test
+    public void getAllAuthorRecords_fullPageReturnsCursor() {
+
+        when(authorService.getAllAuthors(0L, 3)).thenReturn(Flux.just(summaryOf(AUTHOR_1), summaryOf(AUTHOR_2), summaryOf(AUTHOR_3)));
+
+        webTestClient.get().uri("/api/authors/?after=0&limit=3")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.length()").isEqualTo(3)
+                .jsonPath("$.message").isEqualTo("success")
+                .jsonPath("$.cursor").isEqualTo(AUTHOR_3.getId().intValue());
+    }
+
+
+    /**
+     * This test says that when the user sends back the author's current ETag in If-None-Match, then to send NOT MODIFIED without loading the author.
+     * Perform a GET request with If-None-Match and expect the response status to be not modified, the ETag and Vary: Accept to be sent again and the body to be empty.
+     */
+    @Test
+    public void getAuthorRecord_notModifiedWhenETagMatches() {
+
+        when(authorService.getAuthorById(AUTHOR_1.getId())).thenReturn(Mono.just(AUTHOR_1));
+        when(authorService.getAuthorVersion(AUTHOR_1.getId())).thenReturn(Mono.just(3L));
+
+        webTestClient.get().uri("/api/authors/{id}/", 1L)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectBody().isEmpty();
+
+        verify(authorService, never()).getAuthorById(anyLong());
+    }
+
+
+    /**
+     * This test says that when the author has changed since the version the user sent in If-Match, then to send PRECONDITION FAILED.
+     * Perform a PUT request with a stale If-Match and expect the response status to be precondition failed.
+     */
+    @Test
+    public void updateAuthorRecord_preconditionFailedWhenETagIsStale() {
+
+        when(authorService.updateAuthor(eq(1L), Mockito.any(Author.class), eq(3L))).thenReturn(Mono.error(new PreconditionFailedException("author with id 1 has changed since version 3")));
+
+        webTestClient.put().uri("/api/authors/{id}/", 1L)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(AUTHOR_1)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+    }
+
+
+    /**
+     * This test says that when another request changes the author while authorService.updateAuthor() is saving it, then to send CONFLICT instead of overwriting their change.
+     * Perform a PUT request and expect the response status to be conflict, with a message telling the user to retry.
+     */
+    @Test
+    public void updateAuthorRecord_conflictWhenUpdatedConcurrently() {
+
+        when(authorService.updateAuthor(anyLong(), Mockito.any(Author.class), Mockito.any())).thenReturn(Mono.error(new OptimisticLockingFailureException("author with id 1 was updated concurrently")));
+
+        webTestClient.put().uri("/api/authors/{id}/", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(AUTHOR_1)
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("the record was changed by another request at the same time, fetch it again and retry");
+    }
+
+
+    /**
+     * This test says that the author export is sent as NDJSON, one author per line.
+     * Perform a GET request to the endpoint ("/api/authors/export/") and expect every author to come back as its own line.
+     */
+    @Test
+    public void exportAuthorRecords_streamsNdjson() {
+
+        when(authorService.exportAuthors()).thenReturn(Flux.just(summaryOf(AUTHOR_1), summaryOf(AUTHOR_2)));
+
+        webTestClient.get().uri("/api/authors/export/")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(AuthorSummary.class).hasSize(2);
+    }
+
+
+    private static AuthorSummary summaryOf(Author author) {
+        return new AuthorSummary(author.getId(), author.getFirstName(), author.getLastName());
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.example.authorbookapi.load;
+
+import com.example.authorbookapi.AuthorBookApiApplication;
+import com.example.authorbookapi.search.AutocompleteIndex;
+import com.example.authorbookapi.search.BookSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Profiles;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * This boots the app on a random port, seeds it with a catalog of authors and books, and has a number of clients send a mix of reads and writes to every endpoint.
+ * The throughput and p50/p99/p999 latency of each endpoint, and of all of them together, are written as JSON to target/load-test-report.json so runs can be compared between builds.
+ * Run it with mvn -Pload-test verify. The run can be changed with -Dload.clients, -Dload.seconds, -Dload.warmup.seconds, -Dload.authors, -Dload.booksPerAuthor, -Dload.profiles (extra Spring profiles, like reactive) and -Dload.report.
+ * With the reactive profile, the import, search and autocomplete requests are left out of the mix, since ReactiveAuthorController doesn't serve them
+ */
+public class ApiLoadIT {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 50);
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("load.warmup.seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.seconds", 30));
+    private static final int AUTHORS = Integer.getInteger("load.authors", 1_000);
+    private static final int BOOKS_PER_AUTHOR = Integer.getInteger("load.booksPerAuthor", 10);
+    private static final String PROFILES = System.getProperty("load.profiles", "");
+    private static final Path REPORT = Path.of(System.getProperty("load.report", "target/load-test-report.json"));
+
+    // The seeded ids start here so they never collide with the rows from SeedData
+    private static final long FIRST_ID = 1_000;
+
+
+    @Test
+    public void mixedTraffic() throws Exception {
+        // The extra profiles are listed after dev, so their properties win, like spring.autoconfigure.exclude in application-reactive.properties
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(AuthorBookApiApplication.class)
+                .run("--server.port=0", "--spring.profiles.active=dev" + (PROFILES.isEmpty() ? "" : "," + PROFILES))) {
+
+            seed(app.getBean(JdbcTemplate.class));
+            // The seeded rows were inserted with plain SQL, so the indexes haven't seen them. The indexes don't exist with the reactive profile
+            app.getBeanProvider(BookSearchIndex.class).ifAvailable(BookSearchIndex::rebuild);
+            app.getBeanProvider(AutocompleteIndex.class).ifAvailable(AutocompleteIndex::rebuild);
+            boolean reactive = app.getEnvironment().acceptsProfiles(Profiles.of("reactive"));
+
+            LoadDriver driver = new LoadDriver(((WebServerApplicationContext) app).getWebServer().getPort());
+            Map<String, LoadResult> results = driver.run(CLIENTS, WARMUP, DURATION, mix(driver, reactive));
+            LoadResult total = LoadResult.combine(results.values(), DURATION);
+
+            writeReport(results, total);
+            results.forEach((operation, result) -> System.out.println(operation + ": " + result));
+            System.out.println("total: " + total);
+
+            assertThat(total.getErrors()).isZero();
+        }
+    }
+
+
+    /**
+     * This builds the traffic mix. Weights are out of 1000 (840 on the reactive stack): mostly reads of single records and pages, a steady share of creates and updates, and a trickle of deletes, imports and exports.
+     * Writes can get NOT FOUND or CONFLICT when another client deleted or changed the same record first, which is expected and isn't counted as an error
+     *
+     * @param driver represents the driver for the running app
+     * @param reactive represents whether the app runs the reactive stack, which only has the endpoints the two stacks share
+     * @return the operations to send
+     */
+    private static List<Operation> mix(LoadDriver driver, boolean reactive) {
+        List<Operation> mix = new ArrayList<>(List.of(
+                new Operation("GET /authors/", 100, random -> driver.get("authors/?after=" + randomAuthorId(random) + "&limit=50")),
+                new Operation("GET /authors/?include=books", 50, random -> driver.get("authors/?include=books&after=" + randomAuthorId(random) + "&limit=50")),
+                new Operation("GET /authors/{id}/", 175, random -> driver.get("authors/" + randomAuthorId(random) + "/")),
+                new Operation("POST /authors/", 50, random -> driver.post("authors/", "application/json", authorJson(random))),
+                new Operation("PUT /authors/{id}/", 50, random -> driver.put("authors/" + randomAuthorId(random) + "/", authorJson(random))),
+                new Operation("DELETE /authors/{id}/", 5, random -> driver.delete("authors/" + randomAuthorId(random) + "/")),
+                new Operation("GET /authors/books/", 50, random -> driver.get("authors/books/?after=" + randomBookId(random) + "&limit=50")),
+                new Operation("GET /authors/{id}/books/{id}/", 175, random -> {
+                    long bookId = randomBookId(random);
+                    return driver.get("authors/" + authorIdOf(bookId) + "/books/" + bookId + "/");
+                }),
+                new Operation("POST /authors/{id}/books/", 80, random -> driver.post("authors/" + randomAuthorId(random) + "/books/", "application/json", bookJson(random))),
+                new Operation("PUT /authors/{id}/books/{id}/", 80, random -> {
+                    long bookId = randomBookId(random);
+                    return driver.put("authors/" + authorIdOf(bookId) + "/books/" + bookId + "/", bookJson(random));
+                }),
+                new Operation("DELETE /authors/{id}/books/{id}/", 15, random -> {
+                    long bookId = randomBookId(random);
+                    return driver.delete("authors/" + authorIdOf(bookId) + "/books/" + bookId + "/");
+                }),
+                new Operation("GET /authors/export/", 5, random -> driver.get("authors/export/")),
+                new Operation("GET /authors/books/export/", 5, random -> driver.get("authors/books/export/"))));
+
+        if (!reactive) {
+            mix.addAll(List.of(
+                    new Operation("POST /authors/import/", 5, random -> driver.post("authors/import/", "application/x-ndjson", ndjson(10, () -> authorJson(random)))),
+                    new Operation("POST /authors/{id}/books/import/", 5, random -> driver.post("authors/" + randomAuthorId(random) + "/books/import/", "application/x-ndjson", ndjson(10, () -> bookJson(random)))),
+                    new Operation("GET /books/search", 50, random -> driver.get("books/search?q=book+" + randomBookId(random))),
+                    new Operation("GET /autocomplete", 100, random -> {
+                        // This sends a prefix of a seeded book's name, the way a user's keystrokes would
+                        String id = String.valueOf(randomBookId(random));
+                        return driver.get("autocomplete?q=book+" + id.substring(0, 1 + random.nextInt(id.length())));
+                    })));
+        }
+        return mix;
+    }
+
+
+    /**
+     * This inserts the catalog with plain SQL, so even a large one is ready in seconds, and moves the sequences past the seeded ids
+     *
+     * @param jdbcTemplate represents the app's JdbcTemplate
+     */
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        long books = (long) AUTHORS * BOOKS_PER_AUTHOR;
+
+        jdbcTemplate.update("INSERT INTO authors (id, first_name, last_name, version) SELECT X, 'First ' || X, 'Last ' || X, 0 FROM SYSTEM_RANGE(?, ?)",
+                FIRST_ID, FIRST_ID + AUTHORS - 1);
+        jdbcTemplate.update("INSERT INTO books (id, name, description, isbn, author_id, version) SELECT X, 'Book ' || X, 'Description ' || X, CAST(X AS VARCHAR), ? + (X - ?) / ?, 0 FROM SYSTEM_RANGE(?, ?)",
+                FIRST_ID, FIRST_ID, BOOKS_PER_AUTHOR, FIRST_ID, FIRST_ID + books - 1);
+        jdbcTemplate.execute("ALTER SEQUENCE authors_seq RESTART WITH " + (FIRST_ID + AUTHORS + 100));
+        jdbcTemplate.execute("ALTER SEQUENCE books_seq RESTART WITH " + (FIRST_ID + books + 100));
+    }
+
+
+    private static void writeReport(Map<String, LoadResult> results, LoadResult total) throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("java", Runtime.version().feature());
+        report.put("profiles", PROFILES);
+        report.put("clients", CLIENTS);
+        report.put("seconds", DURATION.getSeconds());
+        report.put("authors", AUTHORS);
+        report.put("booksPerAuthor", BOOKS_PER_AUTHOR);
+        report.put("total", total.toReport());
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        results.forEach((operation, result) -> operations.put(operation, result.toReport()));
+        report.put("operations", operations);
+
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(REPORT.toFile(), report);
+    }
+
+
+    private static long randomAuthorId(Random random) {
+        return FIRST_ID + random.nextInt(AUTHORS);
+    }
+
+    private static long randomBookId(Random random) {
+        return FIRST_ID + random.nextInt(AUTHORS * BOOKS_PER_AUTHOR);
+    }
+
+    private static long authorIdOf(long bookId) {
+        return FIRST_ID + (bookId - FIRST_ID) / BOOKS_PER_AUTHOR;
+    }
+
+
+    // Names are unique in the database, so every author and book the clients write gets a random one
+    private static String authorJson(Random random) {
+        return "{\"firstName\":\"Load\",\"lastName\":\"" + Long.toHexString(random.nextLong()) + "\"}";
+    }
+
+    private static String bookJson(Random random) {
+        return "{\"name\":\"Load " + Long.toHexString(random.nextLong()) + "\",\"description\":\"Description\",\"isbn\":\"0000000\"}";
+    }
+
+    private static String ndjson(int lines, Supplier<String> line) {
+        return IntStream.range(0, lines).mapToObj(i -> line.get()).collect(Collectors.joining("\n"));
+    }
+
+}
@@ -0,0 +1,209 @@
+package com.example.authorbookapi.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+/**
+ * This sends HTTP requests to a running copy of the API from a number of clients at the same time, and records how long every request took
+ */
+public class LoadDriver {
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final URI baseUri;
+
+
+    /**
+     * @param port represents the port the API is listening on
+     */
+    public LoadDriver(int port) {
+        this.baseUri = URI.create("http://localhost:" + port + "/api/");
+    }
+
+
+    /**
+     * This builds a GET request for a path under /api/
+     *
+     * @param path represents the path, like "authors/1/"
+     * @return the request
+     */
+    public HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+
+    /**
+     * This builds a POST request for a path under /api/
+     *
+     * @param path represents the path, like "authors/"
+     * @param contentType represents the type of the body, like application/json
+     * @param body represents the body to send
+     * @return the request
+     */
+    public HttpRequest post(String path, String contentType, String body) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(30)).header("Content-Type", contentType).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+
+    /**
+     * This builds a PUT request with a JSON body for a path under /api/
+     *
+     * @param path represents the path, like "authors/1/"
+     * @param json represents the body to send
+     * @return the request
+     */
+    public HttpRequest put(String path, String json) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(30)).header("Content-Type", "application/json").PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+
+    /**
+     * This builds a DELETE request for a path under /api/
+     *
+     * @param path represents the path, like "authors/1/"
+     * @return the request
+     */
+    public HttpRequest delete(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(30)).DELETE().build();
+    }
+
+
+    /**
+     * This sends one request and returns its body, for setting up a run
+     *
+     * @param request represents the request to send
+     * @return the body of the response
+     * @throws IOException if the request can't be sent
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public String send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+
+    /**
+     * This has every client send requests back to back, first for the warm-up (which isn't recorded) and then for the measured run
+     *
+     * @param clients represents how many clients send requests at the same time
+     * @param warmup represents how long to send requests before recording starts
+     * @param duration represents how long to record for
+     * @param nextRequest represents how to pick each client's next request, given that client's random number generator
+     * @return the recorded latencies and error count
+     * @throws Exception if a client fails
+     */
+    public LoadResult run(int clients, Duration warmup, Duration duration, Function<Random, HttpRequest> nextRequest) throws Exception {
+        return run(clients, warmup, duration, List.of(new Operation("all", 1, nextRequest))).get("all");
+    }
+
+
+    /**
+     * This has every client send a weighted mix of operations back to back, first for the warm-up (which isn't recorded) and then for the measured run. Each request's operation is picked at random by weight
+     *
+     * @param clients represents how many clients send requests at the same time
+     * @param warmup represents how long to send requests before recording starts
+     * @param duration represents how long to record for
+     * @param mix represents the operations to send
+     * @return the recorded latencies and error count of each operation, by name, in the order of the mix
+     * @throws Exception if a client fails
+     */
+    public Map<String, LoadResult> run(int clients, Duration warmup, Duration duration, List<Operation> mix) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            runClients(executor, clients, 0, warmup, mix);
+            List<Recording[]> recordings = runClients(executor, clients, clients, duration, mix);
+
+            Map<String, LoadResult> results = new LinkedHashMap<>();
+            for (int i = 0; i < mix.size(); i++) {
+                int operation = i;
+                results.put(mix.get(i).getName(), LoadResult.of(recordings.stream().map(client -> client[operation]).collect(Collectors.toList()), duration));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    // Each client's random number generator is seeded from firstSeed, so a run sends the same requests every time, but the warm-up and the measured run don't repeat each other's
+    private List<Recording[]> runClients(ExecutorService executor, int clients, long firstSeed, Duration duration, List<Operation> mix) throws Exception {
+        long end = System.nanoTime() + duration.toNanos();
+        int totalWeight = mix.stream().mapToInt(Operation::getWeight).sum();
+        List<Future<Recording[]>> futures = new ArrayList<>();
+
+        for (int i = 0; i < clients; i++) {
+            long seed = firstSeed + i;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                Recording[] recordings = new Recording[mix.size()];
+                Arrays.setAll(recordings, operation -> new Recording());
+                while (System.nanoTime() < end) {
+                    int operation = pick(mix, random.nextInt(totalWeight));
+                    HttpRequest request = mix.get(operation).nextRequest(random);
+                    long start = System.nanoTime();
+                    boolean failed;
+                    try {
+                        failed = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 500;
+                    } catch (IOException e) {
+                        failed = true;
+                    }
+                    recordings[operation].add(System.nanoTime() - start, failed);
+                }
+                return recordings;
+            }));
+        }
+
+        List<Recording[]> recordings = new ArrayList<>();
+        for (Future<Recording[]> future : futures) {
+            recordings.add(future.get());
+        }
+        return recordings;
+    }
+
+
+    // This finds the operation whose share of the total weight the roll falls in
+    private static int pick(List<Operation> mix, int roll) {
+        int operation = 0;
+        while (roll >= mix.get(operation).getWeight()) {
+            roll -= mix.get(operation).getWeight();
+            operation++;
+        }
+        return operation;
+    }
+
+
+    /**
+     * This holds one client's latencies in a growing array, so recording a request doesn't box a Long
+     */
+    static class Recording {
+
+        long[] latencies = new long[1024];
+        int count;
+        int errors;
+
+        void add(long latencyNanos, boolean failed) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (failed) {
+                errors++;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.example.authorbookapi.load;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * This is the outcome of a load run: how many requests were sent, how many failed, and the latency percentiles
+ */
+public class LoadResult {
+
+    private final long[] sortedLatencies;
+    private final int errors;
+    private final Duration duration;
+
+    private LoadResult(long[] sortedLatencies, int errors, Duration duration) {
+        this.sortedLatencies = sortedLatencies;
+        this.errors = errors;
+        this.duration = duration;
+    }
+
+
+    static LoadResult of(List<LoadDriver.Recording> recordings, Duration duration) {
+        long[] latencies = new long[recordings.stream().mapToInt(recording -> recording.count).sum()];
+        int errors = 0;
+        int next = 0;
+
+        for (LoadDriver.Recording recording : recordings) {
+            System.arraycopy(recording.latencies, 0, latencies, next, recording.count);
+            next += recording.count;
+            errors += recording.errors;
+        }
+        Arrays.sort(latencies);
+        return new LoadResult(latencies, errors, duration);
+    }
+
+
+    /**
+     * This combines the results of the operations in a mix into one result for all of them
+     *
+     * @param results represents the results of each operation, recorded over the same duration
+     * @param duration represents how long they were recorded for
+     * @return the combined result
+     */
+    static LoadResult combine(Collection<LoadResult> results, Duration duration) {
+        long[] latencies = results.stream().flatMapToLong(result -> Arrays.stream(result.sortedLatencies)).sorted().toArray();
+        return new LoadResult(latencies, results.stream().mapToInt(LoadResult::getErrors).sum(), duration);
+    }
+
+
+    public int getRequests() {
+        return sortedLatencies.length;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    public double getThroughput() {
+        return sortedLatencies.length / (duration.toMillis() / 1000.0);
+    }
+
+
+    /**
+     * This finds the latency that the given fraction of requests finished within
+     *
+     * @param percentile represents the fraction, like 0.99 for p99
+     * @return the latency in milliseconds
+     */
+    public double percentileMillis(double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+    }
+
+
+    /**
+     * This lays the result out as a map, to be written as JSON and compared between builds
+     *
+     * @return the request count, error count, throughput per second and p50/p99/p999 latencies in milliseconds
+     */
+    public Map<String, Object> toReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("requests", getRequests());
+        report.put("errors", errors);
+        report.put("throughput", round(getThroughput()));
+        report.put("p50Millis", round(percentileMillis(0.50)));
+        report.put("p99Millis", round(percentileMillis(0.99)));
+        report.put("p999Millis", round(percentileMillis(0.999)));
+        return report;
+    }
+
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+
+    @Override
+    public String toString() {
+        return String.format("requests=%d errors=%d throughput=%.1f/s p50=%.2fms p99=%.2fms p999=%.2fms",
+                getRequests(), errors, getThroughput(), percentileMillis(0.50), percentileMillis(0.99), percentileMillis(0.999));
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.example.authorbookapi.load;
+
+import java.net.http.HttpRequest;
+import java.util.Random;
+import java.util.function.Function;
+
+
+/**
+ * This is one kind of request in a traffic mix, like "get author", with how often it's sent compared to the others
+ */
+public class Operation {
+
+    private final String name;
+    private final int weight;
+    private final Function<Random, HttpRequest> nextRequest;
+
+
+    /**
+     * @param name represents the name the operation is reported under
+     * @param weight represents how often it's picked, relative to the weights of the other operations in the mix
+     * @param nextRequest represents how to build the next request, given the client's random number generator
+     */
+    public Operation(String name, int weight, Function<Random, HttpRequest> nextRequest) {
+        this.name = name;
+        this.weight = weight;
+        this.nextRequest = nextRequest;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public HttpRequest nextRequest(Random random) {
+        return nextRequest.apply(random);
+    }
+
+}
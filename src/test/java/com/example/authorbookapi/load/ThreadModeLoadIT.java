@@ -0,0 +1,96 @@
+package com.example.authorbookapi.load;
+
+import com.example.authorbookapi.AuthorBookApiApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * This boots the app once on Tomcat's platform thread pool and once with the virtual-threads profile, sends both the same read traffic, and writes their throughput and latency side by side to target/thread-mode-benchmark.txt.
+ * Run it with mvn -Pvirtual-threads verify. The number of clients, the length of the run and the connection pool size can be changed with -Dload.clients, -Dload.seconds and -Dload.poolSize. On a JDK older than 21 only the platform thread run is done.
+ * Both runs get the same connection pool, so the difference between them comes from the thread model and not from how many requests can reach the database at once
+ */
+public class ThreadModeLoadIT {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 400);
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("load.warmup.seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.seconds", 20));
+    // This is the pool size the virtual-threads profile uses (see application-virtual-threads.properties). The platform thread run would otherwise get Hikari's default of 10
+    private static final int POOL_SIZE = Integer.getInteger("load.poolSize", 4);
+
+
+    @Test
+    public void compareThreadModes() throws Exception {
+        Map<String, LoadResult> results = new LinkedHashMap<>();
+
+        results.put("platform threads", runAgainst());
+        if (Runtime.version().feature() >= 21) {
+            results.put("virtual threads", runAgainst("virtual-threads"));
+        }
+
+        List<String> report = new ArrayList<>();
+        report.add("clients=" + CLIENTS + " seconds=" + DURATION.getSeconds() + " poolSize=" + POOL_SIZE + " java=" + Runtime.version().feature());
+        results.forEach((mode, result) -> report.add(mode + ": " + result));
+        Files.write(Path.of("target", "thread-mode-benchmark.txt"), report);
+        report.forEach(System.out::println);
+
+        results.values().forEach(result -> assertThat(result.getErrors()).isZero());
+    }
+
+
+    /**
+     * This boots the app on a random port with the given profiles on top of dev and a pool of POOL_SIZE connections, runs the read traffic against it, and shuts it down
+     *
+     * @param profiles represents the extra profiles to activate
+     * @return the result of the run
+     * @throws Exception if the run fails
+     */
+    private LoadResult runAgainst(String... profiles) throws Exception {
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(AuthorBookApiApplication.class)
+                .profiles(profiles)
+                .run("--server.port=0", "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE, "--spring.datasource.hikari.minimum-idle=" + POOL_SIZE)) {
+
+            LoadDriver driver = new LoadDriver(((WebServerApplicationContext) app).getWebServer().getPort());
+            List<String> paths = readPaths(driver);
+
+            return driver.run(CLIENTS, WARMUP, DURATION, random -> driver.get(paths.get(random.nextInt(paths.size()))));
+        }
+    }
+
+
+    /**
+     * This builds the mix of read requests from the seeded authors and books: each author and book by id, plus the author and book lists once each, which aren't cached and always go to the database
+     *
+     * @param driver represents the driver for the running app
+     * @return the paths to request
+     * @throws Exception if the authors can't be read
+     */
+    private static List<String> readPaths(LoadDriver driver) throws Exception {
+        List<String> paths = new ArrayList<>();
+        JsonNode authors = new ObjectMapper().readTree(driver.send(driver.get("authors/?include=books"))).get("data");
+
+        for (JsonNode author : authors) {
+            paths.add("authors/" + author.get("id").asLong() + "/");
+            for (JsonNode book : author.get("bookList")) {
+                paths.add("authors/" + author.get("id").asLong() + "/books/" + book.get("id").asLong() + "/");
+            }
+        }
+        paths.add("authors/?include=books");
+        paths.add("authors/books/");
+        return paths;
+    }
+
+}
@@ -0,0 +1,601 @@
+package com.example.authorbookapi.service;
+
+import com.example.authorbookapi.config.CacheConfig;
+import com.example.authorbookapi.dto.BatchResult;
+import com.example.authorbookapi.dto.BookSearchResult;
+import com.example.authorbookapi.dto.ImportResult;
+import com.example.authorbookapi.dto.Suggestion;
+import com.example.authorbookapi.exception.InformationExistException;
+import com.example.authorbookapi.exception.InformationInvalidException;
+import com.example.authorbookapi.exception.InformationNotFoundException;
+import com.example.authorbookapi.exception.PreconditionFailedException;
+import com.example.authorbookapi.model.Author;
+import com.example.authorbookapi.model.Book;
+import com.example.authorbookapi.repository.AuthorRepository;
+import com.example.authorbookapi.repository.BookRepository;
+import com.example.authorbookapi.sql.SqlAssertions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
+
+
+// This gives the test its own in-memory database and turns on Hibernate statistics so we can count the SQL statements each call sends
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:authorservicetest",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AuthorServiceTest {
+
+    private static final int EXTRA_AUTHORS = 30;
+    private static final int BOOKS_PER_AUTHOR = 3;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+
+    /**
+     * This adds enough authors and books on top of the seed data that an N+1 query pattern would show up as a different statement count for small and large pages
+     */
+    @BeforeAll
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (int i = 0; i < EXTRA_AUTHORS; i++) {
+            Author author = authorRepository.save(new Author(null, "Query " + i, "Counter " + i));
+            for (int j = 0; j < BOOKS_PER_AUTHOR; j++) {
+                bookRepository.save(new Book(null, "Query Book " + i + "-" + j, "Description", "ISBN", author));
+            }
+        }
+    }
+
+
+    /**
+     * This test checks that a page of authors is one SELECT, whether the page holds 2 authors or 30
+     */
+    @Test
+    public void getAllAuthors_usesOneStatementForAnyPageSize() {
+        assertThat(statementsFor(() -> authorService.getAllAuthors(null, 2))).isEqualTo(1);
+        assertThat(statementsFor(() -> authorService.getAllAuthors(null, 30))).isEqualTo(1);
+    }
+
+
+    /**
+     * This test checks that a page of authors with their books is two SELECTs (the page, then one fetch join), whether the page holds 2 authors or 30
+     */
+    @Test
+    public void getAllAuthorsWithBooks_usesTwoStatementsForAnyPageSize() {
+        assertThat(statementsFor(() -> authorService.getAllAuthorsWithBooks(null, 2))).isEqualTo(2);
+        assertThat(statementsFor(() -> authorService.getAllAuthorsWithBooks(null, 30))).isEqualTo(2);
+    }
+
+
+    /**
+     * This test checks that a page of books doesn't load each book's author
+     */
+    @Test
+    public void getAllBooks_usesOneStatementForAnyPageSize() {
+        assertThat(statementsFor(() -> authorService.getAllBooks(null, 2))).isEqualTo(1);
+        assertThat(statementsFor(() -> authorService.getAllBooks(null, 60))).isEqualTo(1);
+    }
+
+
+    /**
+     * This test checks that an author and their whole book list are loaded together in one SELECT
+     */
+    @Test
+    public void getAuthorById_loadsBooksInOneStatement() {
+        Long authorId = authorRepository.findByFirstNameAndLastName("Query 0", "Counter 0").getId();
+
+        assertThat(statementsFor(() -> assertThat(authorService.getAuthorById(authorId).get().getBookList()).hasSize(BOOKS_PER_AUTHOR))).isEqualTo(1);
+    }
+
+
+    /**
+     * This test checks that looking up a book under its author is one SELECT, and that asking for it under another author is a not found without loading anyone's book list
+     */
+    @Test
+    public void getBookById_checksOwnershipInOneStatement() {
+        Author owner = authorRepository.findByFirstNameAndLastName("Query 1", "Counter 1");
+        Author otherAuthor = authorRepository.findByFirstNameAndLastName("Query 2", "Counter 2");
+        Long bookId = bookRepository.findByName("Query Book 1-0").getId();
+
+        assertThat(statementsFor(() -> assertThat(authorService.getBookById(owner.getId(), bookId)).isPresent())).isEqualTo(1);
+        assertThat(statementsFor(() -> assertThatThrownBy(() -> authorService.getBookById(otherAuthor.getId(), bookId))
+                .isInstanceOf(InformationNotFoundException.class))).isEqualTo(1);
+    }
+
+
+    /**
+     * This test checks that creating an author doesn't look them up first (it's the INSERT, plus a trip to the id sequence when its block of ids runs out), and that creating them again is turned into an InformationExistException by the unique constraint
+     */
+    @Test
+    public void createAuthor_duplicateNameIsRejectedByConstraint() {
+        assertThat(statementsFor(() -> authorService.createAuthor(new Author(null, "Unique", "Author")))).isLessThanOrEqualTo(2);
+
+        assertThatThrownBy(() -> authorService.createAuthor(new Author(null, "Unique", "Author")))
+                .isInstanceOf(InformationExistException.class);
+    }
+
+
+    /**
+     * This test checks that creating a book with a name that's already taken is turned into an InformationExistException by the unique constraint
+     */
+    @Test
+    public void createBook_duplicateNameIsRejectedByConstraint() {
+        Long authorId = authorRepository.findByFirstNameAndLastName("Query 3", "Counter 3").getId();
+
+        assertThatThrownBy(() -> authorService.createBook(authorId, new Book(null, "Query Book 0-0", "Description", "ISBN", null)))
+                .isInstanceOf(InformationExistException.class);
+    }
+
+
+    /**
+     * This test checks that a bulk import saves the valid rows with batched INSERTs, and reports the rows it skipped
+     */
+    @Test
+    public void importBooks_savesValidRowsInBatchesAndReportsTheRest() {
+        Long authorId = authorRepository.findByFirstNameAndLastName("Query 4", "Counter 4").getId();
+        List<Book> feed = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            feed.add(new Book(null, "Imported Book " + i, "Description", "ISBN", null));
+        }
+        feed.add(new Book(null, "Imported Book 0", "Description", "ISBN", null));
+        feed.add(new Book(null, "Query Book 0-0", "Description", "ISBN", null));
+        feed.add(new Book(null, " ", "Description", "ISBN", null));
+
+        statistics.clear();
+        ImportResult result = authorService.importBooks(authorId, feed.iterator());
+
+        assertThat(result.getBooksImported()).isEqualTo(120);
+        assertThat(result.getErrors()).containsExactly(
+                "row 121: book with name Imported Book 0 already exists",
+                "row 122: book with name Query Book 0-0 already exists",
+                "row 123: book name is required");
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(20);
+    }
+
+
+    /**
+     * This test checks that an author feed adds books to authors who already exist instead of creating them again
+     */
+    @Test
+    public void importAuthors_addsBooksToExistingAuthors() {
+        Author existingAuthor = new Author(null, "Query 5", "Counter 5");
+        existingAuthor.setBookList(List.of(new Book(null, "Imported Sequel", "Description", "ISBN", null)));
+        Author newAuthor = new Author(null, "Imported", "Author");
+        newAuthor.setBookList(List.of(new Book(null, "Imported Debut", "Description", "ISBN", null)));
+
+        ImportResult result = authorService.importAuthors(List.of(existingAuthor, newAuthor).iterator());
+
+        assertThat(result.getAuthorsImported()).isEqualTo(1);
+        assertThat(result.getBooksImported()).isEqualTo(2);
+        assertThat(bookRepository.findByName("Imported Sequel").getAuthor().getId())
+                .isEqualTo(authorRepository.findByFirstNameAndLastName("Query 5", "Counter 5").getId());
+    }
+
+
+    /**
+     * This test checks that the book export visits every book once, with its author's id, in a single query
+     */
+    @Test
+    public void exportBooks_streamsEveryBookInOneStatement() {
+        List<Book> exported = new ArrayList<>();
+
+        assertThat(statementsFor(() -> authorService.exportBooks(exported::add))).isEqualTo(1);
+        assertThat(exported).hasSize((int) bookRepository.count());
+        assertThat(exported).allMatch(book -> book.getAuthorId() != null);
+    }
+
+
+    /**
+     * This test checks that a second lookup of the same author is served from the cache without any SQL, and that updating the author evicts them so the next lookup goes back to the database
+     */
+    @Test
+    public void getAuthorById_isCachedUntilTheAuthorIsUpdated() {
+        Long authorId = authorRepository.findByFirstNameAndLastName("Query 6", "Counter 6").getId();
+
+        assertThat(statementsFor(() -> authorService.getAuthorById(authorId))).isEqualTo(1);
+        assertThat(statementsWithCacheFor(() -> authorService.getAuthorById(authorId))).isEqualTo(0);
+
+        authorService.updateAuthor(authorId, new Author(null, "Query 6", "Renamed 6"), null);
+
+        assertThat(statementsWithCacheFor(() -> assertThat(authorService.getAuthorById(authorId).get().getLastName()).isEqualTo("Renamed 6"))).isEqualTo(1);
+    }
+
+
+    /**
+     * This test checks that a book write only evicts the cached book and author once it has committed, so nothing can cache the old record again in between, and that a rolled back write evicts nothing
+     */
+    @Test
+    public void bookWrites_evictCachesOnlyAfterCommit() {
+        Author owner = authorRepository.findByFirstNameAndLastName("Query 13", "Counter 13");
+        Long bookId = bookRepository.findByName("Query Book 13-0").getId();
+        Book update = new Book(null, "Query Book 13-0", "Evicted Description", "ISBN", null);
+        authorService.getAuthorById(owner.getId());
+        authorService.getBookById(owner.getId(), bookId);
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            authorService.updateBook(bookId, update, null);
+            throw new IllegalStateException("rolled back");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(cacheManager.getCache(CacheConfig.BOOKS_CACHE).get(bookId)).isNotNull();
+        assertThat(cacheManager.getCache(CacheConfig.AUTHORS_CACHE).get(owner.getId())).isNotNull();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            authorService.updateBook(bookId, update, null);
+            assertThat(cacheManager.getCache(CacheConfig.BOOKS_CACHE).get(bookId)).isNotNull();
+            assertThat(cacheManager.getCache(CacheConfig.AUTHORS_CACHE).get(owner.getId())).isNotNull();
+        });
+        assertThat(cacheManager.getCache(CacheConfig.BOOKS_CACHE).get(bookId)).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.AUTHORS_CACHE).get(owner.getId())).isNull();
+    }
+
+
+    /**
+     * This test checks that a cached book is still only returned under the author it belongs to
+     */
+    @Test
+    public void getBookById_cachedBookStillChecksOwnership() {
+        Author owner = authorRepository.findByFirstNameAndLastName("Query 7", "Counter 7");
+        Long bookId = bookRepository.findByName("Query Book 7-0").getId();
+
+        authorService.getBookById(owner.getId(), bookId);
+
+        assertThat(statementsWithCacheFor(() -> authorService.getBookById(owner.getId(), bookId))).isEqualTo(0);
+        assertThatThrownBy(() -> authorService.getBookById(owner.getId() + 1, bookId))
+                .isInstanceOf(InformationNotFoundException.class);
+    }
+
+
+    /**
+     * This test checks that once an author has been loaded by id, loading them again is served from Hibernate's second-level cache instead of sending SQL
+     */
+    @Test
+    public void findById_isServedFromSecondLevelCache() {
+        Long authorId = authorRepository.findByFirstNameAndLastName("Query 8", "Counter 8").getId();
+        entityManagerFactory.getCache().evictAll();
+
+        assertThat(statementsFor(() -> authorRepository.findById(authorId))).isEqualTo(1);
+        assertThat(statementsFor(() -> authorRepository.findById(authorId))).isEqualTo(0);
+        assertThat(statementsFor(() -> authorRepository.findById(authorId))).isEqualTo(0);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+
+    /**
+     * This test checks that creating, updating or deleting a book bumps its author's version, so the author's ETag changes whenever their book list does, and that the version lookup doesn't load the author
+     */
+    @Test
+    public void bookChanges_bumpTheAuthorsVersion() {
+        Long authorId = authorRepository.findByFirstNameAndLastName("Query 9", "Counter 9").getId();
+        Long version = authorService.getAuthorVersion(authorId);
+
+        Book book = authorService.createBook(authorId, new Book(null, "Versioned Book", "Description", "ISBN", null));
+        assertThat(statementsFor(() -> assertThat(authorService.getAuthorVersion(authorId)).isEqualTo(version + 1))).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(0);
+
+        authorService.updateBook(book.getId(), new Book(null, "Versioned Book", "New Description", "ISBN", null), null);
+        assertThat(authorService.getAuthorVersion(authorId)).isEqualTo(version + 2);
+        assertThat(authorService.getBookVersion(authorId, book.getId())).isEqualTo(book.getVersion() + 1);
+        assertThat(bookRepository.findById(book.getId()).get().getAuthorId()).isEqualTo(authorId);
+
+        authorService.deleteBook(book.getId());
+        assertThat(authorService.getAuthorVersion(authorId)).isEqualTo(version + 3);
+    }
+
+
+    /**
+     * This test checks that concurrent read-modify-write updates of the same author never lose an update. Each thread reads the author's counter and version, then writes counter + 1 with that version, retrying when it's told the author changed first. If any update were lost, the counter would end up lower than the number of successful updates
+     */
+    @Test
+    public void updateAuthor_concurrentUpdatesAreNeverLost() throws Exception {
+        int threads = 8;
+        int updatesPerThread = 25;
+        Long authorId = authorService.createAuthor(new Author(null, "Contended", "0")).getId();
+        AtomicInteger retries = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                for (int update = 0; update < updatesPerThread; update++) {
+                    boolean saved = false;
+                    while (!saved) {
+                        Author current = authorRepository.findById(authorId).get();
+                        Author next = new Author(null, "Contended", String.valueOf(Integer.parseInt(current.getLastName()) + 1));
+                        try {
+                            authorService.updateAuthor(authorId, next, current.getVersion());
+                            saved = true;
+                        } catch (PreconditionFailedException | ObjectOptimisticLockingFailureException e) {
+                            retries.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Author contended = authorRepository.findById(authorId).get();
+        assertThat(contended.getLastName()).isEqualTo(String.valueOf(threads * updatesPerThread));
+        assertThat(contended.getVersion()).isEqualTo(threads * updatesPerThread);
+        assertThat(retries.get()).isPositive();
+    }
+
+
+    /**
+     * This test checks that an update based on an old version of a book is refused instead of overwriting the newer change
+     */
+    @Test
+    public void updateBook_staleVersionIsRejected() {
+        Book book = bookRepository.findByName("Query Book 10-0");
+
+        authorService.updateBook(book.getId(), new Book(null, "Query Book 10-0", "First Change", "ISBN", null), book.getVersion());
+
+        assertThatThrownBy(() -> authorService.updateBook(book.getId(), new Book(null, "Query Book 10-0", "Second Change", "ISBN", null), book.getVersion()))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThat(bookRepository.findById(book.getId()).get().getDescription()).isEqualTo("First Change");
+    }
+
+
+    /**
+     * This test checks how many connections each call takes from the pool. Every call is one transaction, so it never takes more than one, and a call answered from the cache takes none
+     */
+    @Test
+    public void serviceCalls_takeAtMostOneConnection() {
+        Long authorId = authorRepository.findByFirstNameAndLastName("Query 11", "Counter 11").getId();
+        Long bookId = bookRepository.findByName("Query Book 11-0").getId();
+        // The first reads have to miss both the service caches and Hibernate's second-level cache, whatever the other tests have already loaded
+        cacheManager.getCacheNames().forEach(cacheName -> cacheManager.getCache(cacheName).clear());
+        entityManagerFactory.getCache().evictAll();
+
+        assertThat(connectionsFor(() -> authorService.getAllAuthorsWithBooks(null, 30))).isEqualTo(1);
+        assertThat(connectionsFor(() -> authorService.getAuthorById(authorId))).isEqualTo(1);
+        assertThat(connectionsFor(() -> authorService.getAuthorById(authorId))).isEqualTo(0);
+        assertThat(connectionsFor(() -> authorService.getBookById(authorId, bookId))).isEqualTo(1);
+        assertThat(connectionsFor(() -> authorService.getBookById(authorId, bookId))).isEqualTo(0);
+        assertThat(connectionsFor(() -> authorService.updateBook(bookId, new Book(null, "Query Book 11-0", "New Description", "ISBN", null), null))).isEqualTo(1);
+        assertThat(connectionsFor(() -> authorService.deleteBook(bookId))).isEqualTo(1);
+    }
+
+
+    /**
+     * This test checks that deleting an author deletes the author that was just loaded, along with their books, instead of loading them a second time
+     */
+    @Test
+    public void deleteAuthor_loadsTheAuthorOnce() {
+        Long authorId = authorRepository.findByFirstNameAndLastName("Query 12", "Counter 12").getId();
+
+        assertThat(connectionsFor(() -> authorService.deleteAuthor(authorId))).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3); // The SELECT of the author with their books, one batched DELETE for the books, and the DELETE for the author
+        assertThat(statistics.getEntityDeleteCount()).isEqualTo(1 + BOOKS_PER_AUTHOR);
+        assertThat(authorRepository.existsById(authorId)).isFalse();
+    }
+
+
+    /**
+     * This test checks that reading a page of authors with their books, and then reading every author's book list, sends no more statements for a page of 30 authors than the two it always sends, instead of one more per author
+     */
+    @Test
+    public void getAllAuthorsWithBooks_hasNoNPlusOneQuery() {
+        SqlAssertions.assertAtMostStatements(2, () -> authorService.getAllAuthorsWithBooks(null, 30).forEach(author -> assertThat(author.getBookList()).isNotNull()));
+    }
+
+
+    /**
+     * This test checks that book search ranks a match in a book's name above a match in another book's description, finds books by their author's name, and follows books and authors as they're created, renamed and deleted
+     */
+    @Test
+    public void searchBooks_followsCommittedChanges() {
+        Author author = authorService.createAuthor(new Author(null, "Searchable", "Novelist"));
+        Book named = authorService.createBook(author.getId(), new Book(null, "Zephyr Winds", "A quiet story", "ISBN", null));
+        Book described = authorService.createBook(author.getId(), new Book(null, "Quiet Harbour", "The zephyr blew all night", "ISBN", null));
+
+        assertThat(authorService.searchBooks("zephyr", 10)).extracting(BookSearchResult::getId).containsExactly(named.getId(), described.getId());
+        assertThat(authorService.searchBooks("NOVELIST", 10)).extracting(BookSearchResult::getId).containsExactlyInAnyOrder(named.getId(), described.getId());
+
+        authorService.updateAuthor(author.getId(), new Author(null, "Searchable", "Poet"), null);
+        authorService.updateBook(named.getId(), new Book(null, "Still Waters", "A quiet story", "ISBN", null), null);
+        assertThat(authorService.searchBooks("novelist", 10)).isEmpty();
+        assertThat(authorService.searchBooks("poet zephyr", 10)).extracting(BookSearchResult::getId).containsExactly(described.getId(), named.getId());
+
+        authorService.deleteBook(described.getId());
+        assertThat(authorService.searchBooks("zephyr", 10)).isEmpty();
+        authorService.deleteAuthor(author.getId());
+        assertThat(authorService.searchBooks("poet", 10)).isEmpty();
+    }
+
+
+    /**
+     * This test checks that the book list is filtered by author, ISBN prefix and name in the database, that a name-sorted list pages correctly with an id cursor, and that filters that can't use an index on their own are refused
+     */
+    @Test
+    public void findBooks_filtersSortsAndPages() {
+        Author author = authorService.createAuthor(new Author(null, "Filtered", "Writer"));
+        Book cedar = authorService.createBook(author.getId(), new Book(null, "Cedar 100%", "Trees", "FLT-1", null));
+        Book aspen = authorService.createBook(author.getId(), new Book(null, "Aspen", "Trees", "FLT-2", null));
+        Book birch = authorService.createBook(author.getId(), new Book(null, "Birch", "Trees", "OTHER-3", null));
+
+        assertThat(authorService.findBooks(author.getId(), null, null, "name", null, 10)).extracting(Book::getId).containsExactly(aspen.getId(), birch.getId(), cedar.getId());
+        assertThat(authorService.findBooks(null, "FLT-", null, null, null, 10)).extracting(Book::getId).containsExactly(cedar.getId(), aspen.getId());
+        assertThat(authorService.findBooks(author.getId(), null, "0%", null, null, 10)).extracting(Book::getId).containsExactly(cedar.getId());
+        assertThat(authorService.findBooks(author.getId(), null, "R", null, null, 10)).extracting(Book::getId).containsExactly(cedar.getId(), birch.getId());
+
+        List<Book> firstPage = authorService.findBooks(author.getId(), null, null, "name,desc", null, 2);
+        assertThat(firstPage).extracting(Book::getId).containsExactly(cedar.getId(), birch.getId());
+        assertThat(authorService.findBooks(author.getId(), null, null, "name,desc", birch.getId(), 2)).extracting(Book::getId).containsExactly(aspen.getId());
+
+        assertThatThrownBy(() -> authorService.findBooks(null, null, "Aspen", null, null, 10)).isInstanceOf(InformationInvalidException.class);
+        assertThatThrownBy(() -> authorService.findBooks(author.getId(), null, null, "description", null, 10)).isInstanceOf(InformationInvalidException.class);
+    }
+
+
+    /**
+     * This test checks that ?fields= reads only the fields asked for (plus the id) straight from the columns, without loading any entities, and refuses fields that don't exist
+     */
+    @Test
+    public void fieldProjections_selectOnlyRequestedFields() {
+        Author author = authorService.createAuthor(new Author(null, "Projected", "Author"));
+        Book book = authorService.createBook(author.getId(), new Book(null, "Projected Book", "A very long description", "PRJ-1", null));
+        Long authorVersion = authorService.getAuthorVersion(author.getId()); // Adding the book bumped the author's version
+        statistics.clear();
+
+        assertThat(authorService.findBookFields(author.getId(), null, null, null, null, 10, "name,isbn")).containsExactly(Map.of("id", book.getId(), "name", "Projected Book", "isbn", "PRJ-1"));
+        assertThat(authorService.getBookFieldsById(author.getId(), book.getId(), "name").orElseThrow().keySet()).containsExactly("id", "name");
+        assertThat(authorService.getBookFieldsById(author.getId() + 1, book.getId(), "name")).isEmpty();
+        assertThat(authorService.getAuthorFieldsById(author.getId(), "lastName,version").orElseThrow()).containsExactly(entry("id", author.getId()), entry("lastName", "Author"), entry("version", authorVersion));
+        assertThat(authorService.getAuthorFields(author.getId() - 1, 1, "firstName")).containsExactly(Map.of("id", author.getId(), "firstName", "Projected"));
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        assertThatThrownBy(() -> authorService.getAuthorFieldsById(author.getId(), "bookList")).isInstanceOf(InformationInvalidException.class);
+    }
+
+
+    /**
+     * This test checks that batch lookups send the records back in the order their ids were asked for, list the ids that weren't found, serve cached records without SQL and read the rest in chunks of BATCH_CHUNK_SIZE ids
+     */
+    @Test
+    public void getByIds_keepOrderReportMissingAndUseCache() {
+        Author first = authorService.createAuthor(new Author(null, "Batch 1", "Author"));
+        Author second = authorService.createAuthor(new Author(null, "Batch 2", "Author"));
+        Book book = authorService.createBook(second.getId(), new Book(null, "Batch Book", "Batched", "BAT-1", null));
+        AtomicReference<BatchResult<Author>> authors = new AtomicReference<>();
+        AtomicReference<BatchResult<Book>> books = new AtomicReference<>();
+
+        assertThat(statementsFor(() -> authors.set(authorService.getAuthorsByIds(List.of(second.getId(), -1L, first.getId(), second.getId()))))).isEqualTo(1);
+        assertThat(authors.get().getRecords()).extracting(Author::getId).containsExactly(second.getId(), first.getId());
+        assertThat(authors.get().getRecords().get(0).getBookList()).extracting(Book::getId).containsExactly(book.getId());
+        assertThat(authors.get().getMissingIds()).containsExactly(-1L);
+        assertThat(statementsWithCacheFor(() -> authorService.getAuthorsByIds(List.of(first.getId(), second.getId())))).isZero();
+
+        List<Long> bookIds = LongStream.rangeClosed(-AuthorService.BATCH_CHUNK_SIZE, 0).boxed().collect(Collectors.toCollection(ArrayList::new));
+        bookIds.add(book.getId());
+        assertThat(statementsFor(() -> books.set(authorService.getBooksByIds(bookIds)))).isEqualTo(2);
+        assertThat(books.get().getRecords()).extracting(Book::getId).containsExactly(book.getId());
+        assertThat(books.get().getMissingIds()).hasSize(AuthorService.BATCH_CHUNK_SIZE + 1);
+
+        assertThatThrownBy(() -> authorService.getBooksByIds(Collections.nCopies(AuthorService.MAX_PAGE_SIZE + 1, book.getId()))).isInstanceOf(InformationInvalidException.class);
+    }
+
+
+    /**
+     * This test checks that autocomplete finds authors by either name (only once each) and books by name, in alphabetical order, and follows authors and books as they're renamed and deleted
+     */
+    @Test
+    public void suggest_followsCommittedChanges() {
+        Author author = authorService.createAuthor(new Author(null, "Xanthe", "Xavier"));
+        Book book = authorService.createBook(author.getId(), new Book(null, "Xylophone Days", "Music", "ISBN", null));
+
+        assertThat(authorService.suggest("  XA", 10)).extracting(Suggestion::getType, Suggestion::getId)
+                .containsExactly(tuple(Suggestion.Type.AUTHOR, author.getId()));
+        assertThat(authorService.suggest("x", 10)).extracting(Suggestion::getName).containsExactly("Xanthe Xavier", "Xylophone Days");
+        assertThat(authorService.suggest("x", 1)).hasSize(1);
+
+        authorService.updateAuthor(author.getId(), new Author(null, "Xanthe", "Young"), null);
+        authorService.updateBook(book.getId(), new Book(null, "Yellow Days", "Music", "ISBN", null), null);
+        assertThat(authorService.suggest("xy", 10)).isEmpty();
+        assertThat(authorService.suggest("y", 10)).extracting(Suggestion::getName).containsExactly("Yellow Days", "Xanthe Young");
+
+        authorService.deleteAuthor(author.getId());
+        assertThat(authorService.suggest("x", 10)).isEmpty();
+        assertThat(authorService.suggest("y", 10)).isEmpty();
+    }
+
+
+    /**
+     * This test checks that every AuthorService call is timed under author.service, tagged with the method's name and the exception it threw, if any
+     */
+    @Test
+    public void serviceCalls_areTimedByMethodAndOutcome() {
+        // Other tests in this class call the same methods on the same registry, so only this test's calls are counted
+        long booksBefore = serviceCallsOf("getAllBooks", "none");
+        long duplicatesBefore = serviceCallsOf("createAuthor", "InformationExistException");
+
+        authorService.getAllBooks(null, 10);
+        assertThatThrownBy(() -> authorService.createAuthor(new Author(null, "Query 0", "Counter 0")))
+                .isInstanceOf(InformationExistException.class);
+
+        assertThat(serviceCallsOf("getAllBooks", "none")).isEqualTo(booksBefore + 1);
+        assertThat(serviceCallsOf("createAuthor", "InformationExistException")).isEqualTo(duplicatesBefore + 1);
+    }
+
+
+    // This counts the calls recorded by the author.service timer with the given method and exception tags
+    private long serviceCallsOf(String method, String exception) {
+        Timer timer = meterRegistry.find(AuthorService.METRIC_NAME).tags("method", method, "exception", exception).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    // This counts the connections a call takes from the pool, keeping whatever is already cached, so a repeated read can be checked to take none
+    private long connectionsFor(Runnable call) {
+        Timer acquisitions = meterRegistry.get("hikaricp.connections.acquire").timer();
+        long before = acquisitions.count();
+        statistics.clear();
+        call.run();
+        return acquisitions.count() - before;
+    }
+
+    // This counts the statements a call sends to the database, starting with empty service caches. Hibernate's second-level cache is left as it is
+    private long statementsFor(Runnable call) {
+        cacheManager.getCacheNames().forEach(cacheName -> cacheManager.getCache(cacheName).clear());
+        return statementsWithCacheFor(call);
+    }
+
+    // This counts the statements a call sends to the database, keeping whatever is already cached. Hibernate's statistics are cleared too, for the tests that check its cache and entity counts
+    private long statementsWithCacheFor(Runnable call) {
+        statistics.clear();
+        return SqlAssertions.statementsOf(call);
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.example.authorbookapi.service;
+
+import com.example.authorbookapi.exception.InformationNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<Long, String> flight = new SingleFlight<>("author", meterRegistry);
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+
+    @AfterEach
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+
+    /**
+     * This test checks that callers who ask for the same key while its load is running all get the leader's result, the load only runs once, and each call is counted as loaded or coalesced
+     */
+    @Test
+    public void concurrentLoadsOfOneKey_shareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> flight.load(1L, () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "author 1";
+            })));
+        }
+        waitUntil(() -> calls("coalesced") == CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("author 1");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(calls("loaded")).isEqualTo(1);
+
+        // Once the load has finished nothing is kept, so the next call loads again
+        assertThat(flight.load(1L, () -> "author 1 again")).isEqualTo("author 1 again");
+        assertThat(calls("loaded")).isEqualTo(2);
+    }
+
+
+    /**
+     * This test checks that when the leader's load fails, the callers waiting on it get the same exception, unwrapped
+     */
+    @Test
+    public void failedLoad_isThrownToEveryCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.load(2L, () -> {
+            await(release);
+            throw new InformationNotFoundException("author with id 2 not found");
+        }));
+        waitUntil(() -> calls("loaded") == 1);
+        Future<String> follower = executor.submit(() -> flight.load(2L, () -> "never loaded"));
+        waitUntil(() -> calls("coalesced") == 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(InformationNotFoundException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(InformationNotFoundException.class);
+    }
+
+
+    // This counts the calls recorded under the given outcome
+    private double calls(String outcome) {
+        return meterRegistry.get(SingleFlight.METRIC_NAME).tags("flight", "author", "outcome", outcome).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting for the callers").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.example.authorbookapi.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * These let a test check how many SQL statements a call sends, so a change that makes a service call send one statement per row (an N+1 query) fails the build.
+ * Statements are counted by SqlBudgetListener as the DataSource runs them, so they include everything Hibernate, Spring Data and plain JDBC send, and a JDBC batch counts once
+ */
+public final class SqlAssertions {
+
+    private SqlAssertions() {
+    }
+
+
+    /**
+     * This counts the SQL statements a call sends on the current thread
+     *
+     * @param call represents the call to count
+     * @return the number of statements
+     */
+    public static int statementsOf(Runnable call) {
+        return SqlStatistics.during(call).getStatements();
+    }
+
+
+    /**
+     * This fails if a call sends more SQL statements than it's allowed
+     *
+     * @param maxStatements represents the most statements the call can send
+     * @param call represents the call to check
+     */
+    public static void assertAtMostStatements(int maxStatements, Runnable call) {
+        SqlStatistics statistics = SqlStatistics.during(call);
+
+        assertThat(statistics.getStatements())
+                .as("the call sent %s, but only %d are allowed. A count that grows with the number of rows usually means an N+1 query", statistics, maxStatements)
+                .isLessThanOrEqualTo(maxStatements);
+    }
+
+}
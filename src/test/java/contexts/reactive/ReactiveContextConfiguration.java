@@ -0,0 +1,17 @@
+package contexts.reactive;
+
+import com.example.authorbookapi.AuthorBookApiApplication;
+import io.cucumber.spring.CucumberContextConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+
+@CucumberContextConfiguration
+// This starts the reactive variant of the app on a random port, with its own in-memory database, so the same scenarios run against ReactiveAuthorController
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = AuthorBookApiApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:cucumber-reactive;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.url=r2dbc:h2:mem:///cucumber-reactive;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles({"dev", "reactive"})
+public class ReactiveContextConfiguration {
+}
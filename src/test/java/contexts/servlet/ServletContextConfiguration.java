@@ -0,0 +1,12 @@
+package contexts.servlet;
+
+import com.example.authorbookapi.AuthorBookApiApplication;
+import io.cucumber.spring.CucumberContextConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+
+
+@CucumberContextConfiguration
+// This configures the web environment to use a random port in order to avoid port number conflicts in the test environment and indicates that our main method is in the AuthorBookApiApplication class. The scenarios get their own in-memory database, so they start from the seed data whatever the other tests have changed
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = AuthorBookApiApplication.class, properties = "spring.datasource.url=jdbc:h2:mem:cucumber;DB_CLOSE_DELAY=-1")
+public class ServletContextConfiguration {
+}
@@ -1,17 +1,14 @@
 package definitions;
 
-import com.example.authorbookapi.AuthorBookApiApplication;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
-import io.cucumber.spring.CucumberContextConfiguration;
 import io.restassured.RestAssured;
 import io.restassured.path.json.JsonPath;
 import io.restassured.specification.RequestSpecification;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.Assert;
-import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import java.util.List;
 import java.util.Map;
@@ -24,9 +21,7 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 
-@CucumberContextConfiguration
-// This configures the web environment to use a random port in order to avoid port number conflicts in the test environment and indicates that our main method is in the AuthorBookApiApplication class
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = AuthorBookApiApplication.class)
+// The app these steps run against is started by the context configuration in the runner's glue: contexts.servlet for TestRunner and contexts.reactive for TestReactiveRunner
 public class AuthorControllerTestDefinitions {
 
     private static final String BASE_URL = "http://localhost:";
@@ -114,8 +109,9 @@ public class AuthorControllerTestDefinitions {
         RestAssured.baseURI = BASE_URL;
         RequestSpecification request = RestAssured.given();
         JSONObject requestBody = new JSONObject();
-        requestBody.put("firstName", "First Name");
-        requestBody.put("lastName", "Last Name");
+        // This is a different name from the author added above, since two authors can't have the same name
+        requestBody.put("firstName", "Edited First Name");
+        requestBody.put("lastName", "Edited Last Name");
         request.header("Content-Type", "application/json");
         response = request.body(requestBody.toString()).put(BASE_URL + port + "/api/authors/1/");
     }
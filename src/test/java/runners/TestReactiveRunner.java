@@ -0,0 +1,16 @@
+package runners;
+
+import io.cucumber.junit.Cucumber;
+import io.cucumber.junit.CucumberOptions;
+import org.junit.runner.RunWith;
+
+
+// This runs the same features as TestRunner, against the reactive (Netty) variant of the app
+@RunWith(Cucumber.class)
+@CucumberOptions(
+        features = "src/test/resources/features",
+        glue = {"definitions", "contexts.reactive"},
+        plugin = {"pretty"}
+)
+public class TestReactiveRunner {
+}